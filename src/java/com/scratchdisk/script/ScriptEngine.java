@@ -18,9 +18,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 
 import com.scratchdisk.util.ClassUtils;
+import com.scratchdisk.util.FileWatcher;
 
 /**
  * @author lehni
@@ -32,8 +35,20 @@ public abstract class ScriptEngine {
 	private static HashMap<String, ScriptEngine> enginesByExtension =
 		new HashMap<String, ScriptEngine>();
 	private static boolean loaded = false;
+	private static FileWatcher watcher = null;
+	// Milliseconds between two polls of the watched directories, and without
+	// further changes before they are applied.
+	private static final long WATCH_INTERVAL = 500;
+	private static final long WATCH_DELAY = 250;
 	private HashMap<File, Script> scriptCache =
 		new HashMap<File, Script>();
+	// The canonical files for all paths that scripts were compiled from,
+	// which are used as the keys in scriptCache.
+	private HashMap<File, File> canonicalFiles =
+		new HashMap<File, File>();
+	private File cacheDirectory;
+	private int cacheHits = 0;
+	private int cacheMisses = 0;
 
 	public ScriptEngine(String name, String extension) {
 		addName(name);
@@ -132,8 +147,8 @@ public abstract class ScriptEngine {
 			throws ScriptException, IOException;
 
 	/**
-	 * Compiles the specified file.
-	 * Caching for the compiled scripts is used for speed increase.
+	 * Compiles the specified file, checking it for modifications if it was
+	 * compiled before.
 	 * 
 	 * @param file
 	 * @throws IOException 
@@ -141,14 +156,198 @@ public abstract class ScriptEngine {
 	 */
 	public Script compile(File file)
 			throws ScriptException, IOException {
-		Script script = scriptCache.get(file);
-		if (script == null || script.hasChanged()) {
+		return compile(file, true);
+	}
+
+	/**
+	 * Compiles the specified file.
+	 * Caching for the compiled scripts is used for speed increase. Scripts
+	 * are cached by their canonical file, so different paths to the same
+	 * file share one entry. Scripts within the directories passed to
+	 * {@link #watchDirectories(File[])} are invalidated by the watcher, which
+	 * only reports changes after a short delay though. So scripts run by the
+	 * user should still be checked, while scripts loaded from other scripts,
+	 * e.g. through include(), can rely on the watcher and do not need to
+	 * access the file system on cache hits. All other scripts are checked
+	 * for modifications each time.
+	 * 
+	 * @param file
+	 * @param checkChanged whether to check the file for modifications even
+	 *        if it lies within a watched directory
+	 * @throws IOException 
+	 * @throws ScriptException 
+	 */
+	public Script compile(File file, boolean checkChanged)
+			throws ScriptException, IOException {
+		// Scripts may be compiled from several threads at once, so only lock
+		// the cache itself and not the compilation.
+		File canonicalFile = getCanonicalFile(file);
+		Script script;
+		synchronized (scriptCache) {
+			script = scriptCache.get(canonicalFile);
+		}
+		if (script == null || (checkChanged || !isWatched(canonicalFile))
+				&& script.hasChanged()) {
+			long modified = canonicalFile.lastModified();
 			script = compileScript(file);
-			scriptCache.put(file, script);
+			synchronized (scriptCache) {
+				// Do not cache the result if the file changed while it was
+				// compiled, as the watcher may already have invalidated the
+				// entry, and the script may have been compiled from the old
+				// source.
+				if (canonicalFile.lastModified() == modified)
+					scriptCache.put(canonicalFile, script);
+			}
 		}
 		return script;
 	}
 
+	/**
+	 * Returns the canonical form of the file, which is only determined the
+	 * first time each path is seen, since this accesses the file system.
+	 */
+	private File getCanonicalFile(File file) {
+		File canonicalFile;
+		synchronized (scriptCache) {
+			canonicalFile = canonicalFiles.get(file);
+		}
+		if (canonicalFile == null) {
+			canonicalFile = FileWatcher.getCanonicalFile(file);
+			synchronized (scriptCache) {
+				canonicalFiles.put(file, canonicalFile);
+			}
+		}
+		return canonicalFile;
+	}
+
+	/**
+	 * Removes all compiled scripts from the cache, so they are compiled again
+	 * the next time they are used.
+	 */
+	public void clearCache() {
+		synchronized (scriptCache) {
+			scriptCache.clear();
+			canonicalFiles.clear();
+		}
+	}
+
+	/**
+	 * Removes the compiled scripts for the given files from the cache. For
+	 * directories, all scripts within them are removed. Files are compared in
+	 * their canonical form, so any path to them can be passed.
+	 */
+	public void invalidate(File[] files) {
+		File[] canonical = new File[files.length];
+		String[] paths = new String[files.length];
+		for (int i = 0; i < files.length; i++) {
+			canonical[i] = FileWatcher.getCanonicalFile(files[i]);
+			paths[i] = canonical[i].getPath() + File.separator;
+		}
+		synchronized (scriptCache) {
+			for (Iterator<File> it = scriptCache.keySet().iterator();
+					it.hasNext();) {
+				if (isInvalidated(it.next(), canonical, paths))
+					it.remove();
+			}
+			// Changes may also affect how paths resolve, e.g. for replaced
+			// symbolic links.
+			for (Iterator<File> it = canonicalFiles.values().iterator();
+					it.hasNext();) {
+				if (isInvalidated(it.next(), canonical, paths))
+					it.remove();
+			}
+		}
+	}
+
+	private static boolean isInvalidated(File file, File[] files,
+			String[] paths) {
+		String path = file.getPath();
+		for (int i = 0; i < files.length; i++) {
+			if (file.equals(files[i]) || path.startsWith(paths[i]))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Watches the given directories for changes on a background thread, and
+	 * removes changed scripts within them from the caches of all engines.
+	 * Passing {@code null} stops watching.
+	 */
+	public static synchronized void watchDirectories(File[] directories) {
+		if (directories == null) {
+			if (watcher != null) {
+				watcher.dispose();
+				watcher = null;
+			}
+		} else {
+			if (watcher == null) {
+				watcher = new FileWatcher(new FileWatcher.Listener() {
+					public void onChange(File[] files) {
+						for (ScriptEngine engine : getEngines())
+							engine.invalidate(files);
+					}
+				}, WATCH_INTERVAL, WATCH_DELAY);
+				watcher.setDirectories(directories);
+				watcher.start();
+			} else {
+				watcher.setDirectories(directories);
+			}
+		}
+	}
+
+	/**
+	 * Returns a number that changes each time the watcher found changes in
+	 * the watched directories, or -1 if no directories are watched.
+	 */
+	public static synchronized int getWatchVersion() {
+		return watcher != null ? watcher.getVersion() : -1;
+	}
+
+	private static synchronized boolean isWatched(File file) {
+		return watcher != null && watcher.isWatching(file);
+	}
+
+	private static synchronized ScriptEngine[] getEngines() {
+		return new HashSet<ScriptEngine>(enginesByName.values()).toArray(
+				new ScriptEngine[0]);
+	}
+
+	/**
+	 * The directory in which engines that support it store compiled scripts
+	 * across launches, or {@code null} if scripts are only cached in memory.
+	 */
+	public File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	public void setCacheDirectory(File directory) {
+		cacheDirectory = directory;
+	}
+
+	/**
+	 * The amount of scripts that were loaded from the cache directory rather
+	 * than compiled from their sources.
+	 */
+	public synchronized int getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * The amount of scripts that were compiled from their sources while a
+	 * cache directory was set.
+	 */
+	public synchronized int getCacheMisses() {
+		return cacheMisses;
+	}
+
+	protected synchronized void countCacheHit(boolean hit) {
+		if (hit)
+			cacheHits++;
+		else
+			cacheMisses++;
+	}
+
 	public abstract Script compile(String code, String name);
 
 	public Object evaluate(String code, String name, Scope scope)
@@ -21,9 +21,11 @@ import java.util.Map;
 
 import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.JavaMembers;
 import org.mozilla.javascript.MemberBox;
 import org.mozilla.javascript.NativeJavaClass;
 import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.PropertyDescriptor;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -39,6 +41,16 @@ public class ExtendedJavaClass extends NativeJavaClass {
 	// A lookup for the associated ExtendedJavaClass wrappers
 	private static IdentityHashMap<Class, ExtendedJavaClass> classes =
 			new IdentityHashMap<Class, ExtendedJavaClass>();
+	// Increased whenever an instance prototype is modified, to invalidate the
+	// cached property lookups of all classes.
+	private static volatile int prototypeVersion = 0;
+	// Per property name, where instances of this class find it. The map is
+	// replaced rather than modified, so it can be read without locking. The
+	// last used lookup is kept separately, to skip the hash lookup for
+	// repeated accesses of the same name.
+	private volatile HashMap<String, PropertyLookup> lookups =
+			new HashMap<String, PropertyLookup>();
+	private PropertyLookup lastLookup = null;
 
 	public ExtendedJavaClass(Scriptable scope, Class cls, boolean unsealed) {
 		super(scope, cls);
@@ -225,7 +237,7 @@ public class ExtendedJavaClass extends NativeJavaClass {
 
 	public Scriptable getInstancePrototype() {
 		if (instanceProto == null) {
-			instanceProto = new NativeObject();
+			instanceProto = new InstancePrototype();
 			// Set the prototype chain correctly for this prototype object, 
 			// so properties in the prototype of parent classes are found too:
 			Class sup = getClassObject().getSuperclass();
@@ -243,6 +255,107 @@ public class ExtendedJavaClass extends NativeJavaClass {
 		return instanceProto;
 	}
 
+	/**
+	 * Returns where instances of this class with the given Java members find
+	 * the named property, as used by {@link ExtendedJavaObject#get}. The result
+	 * stays valid until an instance prototype is modified.
+	 */
+	PropertyLookup getPropertyLookup(String name, JavaMembers members) {
+		// Names from compiled scripts are interned constants, so comparing
+		// references is enough for the common case of repeated accesses.
+		PropertyLookup lookup = lastLookup;
+		int version = prototypeVersion;
+		if (lookup == null || lookup.name != name || lookup.members != members
+				|| lookup.version != version) {
+			lookup = lookups.get(name);
+			if (lookup == null || lookup.members != members
+					|| lookup.version != version) {
+				Scriptable proto = getInstancePrototype();
+				lookup = new PropertyLookup(name, members, version,
+						proto.has(name, proto),
+						members.has(name, false) || members.has(name, true));
+				synchronized (this) {
+					HashMap<String, PropertyLookup> copy =
+							new HashMap<String, PropertyLookup>(lookups);
+					copy.put(name, lookup);
+					lookups = copy;
+				}
+			}
+			lastLookup = lookup;
+		}
+		return lookup;
+	}
+
+	/**
+	 * The result of looking up a property name on instances of a class: Whether
+	 * the instance prototype defines it, and whether the Java object has a
+	 * member of that name. Instances are immutable, so they can be shared
+	 * between threads without locking.
+	 */
+	static class PropertyLookup {
+		final String name;
+		final JavaMembers members;
+		final int version;
+		final boolean isPrototype;
+		final boolean isMember;
+
+		PropertyLookup(String name, JavaMembers members, int version,
+				boolean isPrototype, boolean isMember) {
+			this.name = name;
+			this.members = members;
+			this.version = version;
+			this.isPrototype = isPrototype;
+			this.isMember = isMember;
+		}
+	}
+
+	/**
+	 * The instance prototype, which invalidates all cached property lookups
+	 * whenever its properties are changed. The version is increased after the
+	 * change, so a lookup never stores a result of the old state with the new
+	 * version.
+	 */
+	private static class InstancePrototype extends NativeObject {
+		private static final long serialVersionUID = 1L;
+
+		public void put(String name, Scriptable start, Object value) {
+			super.put(name, start, value);
+			prototypeVersion++;
+		}
+
+		public void putConst(String name, Scriptable start, Object value) {
+			super.putConst(name, start, value);
+			prototypeVersion++;
+		}
+
+		public void delete(String name) {
+			super.delete(name);
+			prototypeVersion++;
+		}
+
+		public void defineConst(String name, Scriptable start) {
+			super.defineConst(name, start);
+			prototypeVersion++;
+		}
+
+		public void defineProperty(String name, Object value, int attributes) {
+			super.defineProperty(name, value, attributes);
+			prototypeVersion++;
+		}
+
+		public void defineOwnProperty(Context cx, Object id,
+				PropertyDescriptor desc) {
+			super.defineOwnProperty(cx, id, desc);
+			prototypeVersion++;
+		}
+
+		public void setGetterOrSetter(String name, int index,
+				Callable getterOrSetter, boolean isSetter) {
+			super.setGetterOrSetter(name, index, getterOrSetter, isSetter);
+			prototypeVersion++;
+		}
+	}
+
 	public String getClassName() {
 		return className;
 	}
@@ -94,19 +94,36 @@ public class ExtendedJavaObject extends NativeJavaObject {
 		// See whether this object defines the property.
 		// Properties need to come first, as they might override something
 		// defined in the underlying Java object
-		if (properties != null && properties.containsKey(name))
+		if (properties != null && !properties.isEmpty()
+				&& properties.containsKey(name))
 			return properties.get(name);
 		if (changeReceiver != null)
 			fetchChangeReceiver();
-		Scriptable prototype = getPrototype();
-		Object result = prototype.get(name, this);
-		if (result != Scriptable.NOT_FOUND)
-			return result;
-		result = members.get(this, name, javaObject, false);
-		if (result != Scriptable.NOT_FOUND) {
-			if (javaObject instanceof ChangeReceiver)
-				handleChangeEmitter(result, name);
-			return result;
+		Scriptable prototype = super.getPrototype();
+		boolean isPrototype = true, isMember = true;
+		if (prototype == null) {
+			// Using the class' instance prototype, so the class wrapper knows
+			// whether it or the Java members define the property, without
+			// having to ask both each time.
+			prototype = classWrapper.getInstancePrototype();
+			ExtendedJavaClass.PropertyLookup lookup =
+					classWrapper.getPropertyLookup(name, members);
+			isPrototype = lookup.isPrototype;
+			isMember = lookup.isMember;
+		}
+		Object result;
+		if (isPrototype) {
+			result = prototype.get(name, this);
+			if (result != Scriptable.NOT_FOUND)
+				return result;
+		}
+		if (isMember) {
+			result = members.get(this, name, javaObject, false);
+			if (result != Scriptable.NOT_FOUND) {
+				if (javaObject instanceof ChangeReceiver)
+					handleChangeEmitter(result, name);
+				return result;
+			}
 		}
 		if (name.equals("prototype"))
 			return prototype;
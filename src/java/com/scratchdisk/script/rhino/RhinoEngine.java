@@ -47,6 +47,8 @@ public class RhinoEngine extends ScriptEngine implements ScopeProvider {
 	protected RhinoWrapFactory wrapFactory;
 	private RhinoScope globalScope;
 	private RhinoDebugger debugger;
+	private ScriptFileCache fileCache;
+	private ContextFactory contextFactory;
 
 	public RhinoEngine(RhinoWrapFactory wrapFactory) {
 		super("JavaScript", "js");
@@ -60,7 +62,7 @@ public class RhinoEngine extends ScriptEngine implements ScopeProvider {
 
 		// Produce a ContextFactory that only redirects calls to RhinoEngine,
 		// so they can be overridden easily in inherited classes.
-		ContextFactory contextFactory = new ContextFactory() {
+		contextFactory = new ContextFactory() {
 			protected boolean hasFeature(Context cx, int feature) {
 				return RhinoEngine.this.hasFeature(cx,
 						feature, super.hasFeature(cx, feature));
@@ -127,19 +129,86 @@ public class RhinoEngine extends ScriptEngine implements ScopeProvider {
 
 	protected Script compileScript(File file)
 			throws RhinoScriptException, IOException {
-		FileReader in = null;
+		// Scripts may be compiled on other threads than the one the engine
+		// was created on, e.g. during startup. Entering reuses the thread's
+		// current context, or creates a new one for this thread.
+		Context cx = contextFactory.enterContext();
 		try {
-			in = new FileReader(file);
-			return new RhinoScript(this, context.compileReader(
-					in, file.getPath(), 1, null), file);
+			// Only interpreted scripts can be stored in the cache directory,
+			// since scripts compiled to Java classes cannot be serialized
+			// without their generated classes. The debugger needs to see the
+			// sources as they are compiled, so also bypass the cache while it
+			// is attached.
+			if (fileCache != null && cx.getOptimizationLevel() < 0
+					&& cx.getDebugger() == null)
+				return new RhinoScript(this, compileCachedScript(cx, file),
+						file);
+			FileReader in = null;
+			try {
+				in = new FileReader(file);
+				return new RhinoScript(this, cx.compileReader(
+						in, file.getPath(), 1, null), file);
+			} catch (RhinoException e) {
+				throw new RhinoScriptException(this, e);
+			} finally {
+				if (in != null)
+					in.close();
+			}
+		} finally {
+			Context.exit();
+		}
+	}
+
+	/**
+	 * Compiles the script through Rhino's interpreter, reusing the script
+	 * stored in the cache directory if the source and the compiler settings
+	 * did not change since it was stored.
+	 */
+	private org.mozilla.javascript.Script compileCachedScript(Context cx,
+			File file)
+			throws RhinoScriptException, IOException {
+		String path = file.getPath();
+		String source = readSource(file);
+		String key = ScriptFileCache.getKey(cx.getImplementationVersion()
+				+ " " + cx.getOptimizationLevel()
+				+ " " + cx.getLanguageVersion()
+				+ " " + cx.isGeneratingDebug()
+				+ " " + cx.hasFeature(Context.FEATURE_DYNAMIC_SCOPE),
+				path, source);
+		org.mozilla.javascript.Script script = fileCache.get(key);
+		if (script != null) {
+			countCacheHit(true);
+			return script;
+		}
+		try {
+			script = cx.compileString(source, path, 1, null);
 		} catch (RhinoException e) {
 			throw new RhinoScriptException(this, e);
+		}
+		countCacheHit(false);
+		fileCache.put(key, script);
+		return script;
+	}
+
+	private static String readSource(File file) throws IOException {
+		FileReader in = new FileReader(file);
+		try {
+			StringBuffer source = new StringBuffer((int) file.length());
+			char[] buffer = new char[4096];
+			int count;
+			while ((count = in.read(buffer)) != -1)
+				source.append(buffer, 0, count);
+			return source.toString();
 		} finally {
-			if (in != null)
-				in.close();
+			in.close();
 		}
 	}
 
+	public void setCacheDirectory(File directory) {
+		super.setCacheDirectory(directory);
+		fileCache = directory != null ? new ScriptFileCache(directory) : null;
+	}
+
 	public Script compile(String code, String name) {
 		return new RhinoScript(this,
 				context.compileString(code, name, 1, null), null);
@@ -0,0 +1,196 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scratchdisk.script.rhino;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.mozilla.javascript.Script;
+
+/**
+ * Stores scripts compiled by Rhino's interpreter on disk, so scripts that
+ * did not change do not need to be parsed and compiled again on the next
+ * launch. Interpreted scripts are serializable, and reading them back is
+ * considerably faster than compiling their sources.
+ *
+ * Entries are keyed by a hash over the compiler settings, the script's path
+ * and its source, so changing either of them simply results in a different
+ * entry. Entries are only read when their script is compiled, and any entry
+ * that cannot be read is deleted.
+ *
+ * @author agent
+ */
+class ScriptFileCache {
+	/**
+	 * Identifies the entry file format. Change this whenever the format or the
+	 * way scripts are compiled changes, to ignore all existing entries.
+	 */
+	private static final int MAGIC = 0x53474332; // "SGC2"
+
+	private File directory;
+
+	public ScriptFileCache(File directory) {
+		this.directory = directory;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the key for the given script source as a hex string, which is
+	 * also used as the file name of its entry.
+	 */
+	public static String getKey(String settings, String path, String source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(settings.getBytes("UTF-8"));
+			digest.update((byte) 0);
+			digest.update(path.getBytes("UTF-8"));
+			digest.update((byte) 0);
+			digest.update(source.getBytes("UTF-8"));
+			byte[] hash = digest.digest();
+			StringBuffer key = new StringBuffer(hash.length * 2);
+			for (int i = 0; i < hash.length; i++) {
+				String part = Integer.toHexString(hash[i] & 0xff);
+				if (part.length() == 1)
+					key.append('0');
+				key.append(part);
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Reads the script stored for the given key.
+	 *
+	 * @return the script, or {@code null} if there is no readable entry
+	 */
+	public Script get(String key) {
+		File file = new File(directory, key);
+		if (!file.isFile())
+			return null;
+		ObjectInputStream in = null;
+		try {
+			InputStream stream = new BufferedInputStream(
+					new FileInputStream(file));
+			in = new ScriptInputStream(stream);
+			if (in.readInt() != MAGIC)
+				throw new IOException("Invalid cache entry: " + file);
+			return (Script) in.readObject();
+		} catch (IOException e) {
+			remove(key);
+			return null;
+		} catch (ClassNotFoundException e) {
+			remove(key);
+			return null;
+		} catch (RuntimeException e) {
+			// E.g. ClassCastException from an unexpected entry
+			remove(key);
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Stores the script for the given key. The entry is written to a
+	 * temporary file first and then renamed, so a failing write never leaves
+	 * a partial entry behind. Failures, e.g. from scripts that reference
+	 * objects that cannot be serialized, are ignored, as the cache is only an
+	 * optimization.
+	 */
+	public void put(String key, Script script) {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return;
+		File tmp = new File(directory, key + ".tmp");
+		ObjectOutputStream out = null;
+		try {
+			out = new ObjectOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tmp)));
+			out.writeInt(MAGIC);
+			out.writeObject(script);
+			out.close();
+			out = null;
+			File file = new File(directory, key);
+			// File.renameTo does not replace existing files on all platforms
+			file.delete();
+			if (!tmp.renameTo(file))
+				tmp.delete();
+		} catch (IOException e) {
+			close(out);
+			tmp.delete();
+		}
+	}
+
+	public void remove(String key) {
+		new File(directory, key).delete();
+	}
+
+	/**
+	 * Deletes all entries.
+	 */
+	public void clear() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++)
+				files[i].delete();
+		}
+	}
+
+	private static void close(java.io.Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Resolves classes through the class loader that loaded Rhino, rather
+	 * than the one ObjectInputStream finds on the stack, which may not see
+	 * Rhino's classes when running inside the plugin.
+	 */
+	private static class ScriptInputStream extends ObjectInputStream {
+		public ScriptInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		protected Class<?> resolveClass(ObjectStreamClass desc)
+				throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false,
+						Script.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scratchdisk.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Watches a set of directories for added, removed and modified files on a
+ * background thread, and notifies its listener about them.
+ *
+ * The directories are polled, so the rest of the application does not need
+ * to check files itself each time it uses them. Changes are collected until
+ * no further change was seen for the given delay, so that saving many files
+ * at once, or a file in several steps, results in one notification.
+ *
+ * To keep polling cheap, the content of a directory is only listed again
+ * when its modification date changed, which happens when files are added,
+ * removed or renamed in it. Unchanged directories reuse their last listing,
+ * so a poll only reads the modification dates of the files.
+ *
+ * @author agent
+ */
+public class FileWatcher extends Thread {
+	// Modification dates may only have a resolution of seconds, so listings
+	// taken less than this amount of milliseconds after their directory
+	// changed may miss files and are not reused.
+	private static final long LISTING_MARGIN = 2000;
+
+	public interface Listener {
+		/**
+		 * Called on the watcher thread with all files that were added,
+		 * removed or modified since the previous poll. Files are only
+		 * compared with the state found on the first poll after the watched
+		 * directories were set, so changes from before are not reported.
+		 */
+		void onChange(File[] files);
+	}
+
+	private Listener listener;
+	private long interval;
+	private long delay;
+	private File[] directories = new File[0];
+	private String[] paths = new String[0];
+	private boolean rescan = true;
+	private boolean running = true;
+	private volatile int version = 0;
+	private HashMap<File, Long> modified = new HashMap<File, Long>();
+	private HashMap<File, Listing> listings = new HashMap<File, Listing>();
+	private LinkedHashSet<File> pending = new LinkedHashSet<File>();
+	private long lastChange = 0;
+
+	/**
+	 * @param listener the listener to notify about changes
+	 * @param interval the time between two polls, in milliseconds
+	 * @param delay the time without changes after which they are reported,
+	 *        in milliseconds
+	 */
+	public FileWatcher(Listener listener, long interval, long delay) {
+		super("FileWatcher");
+		this.listener = listener;
+		this.interval = interval;
+		this.delay = delay;
+		setDaemon(true);
+	}
+
+	public synchronized File[] getDirectories() {
+		return directories.clone();
+	}
+
+	/**
+	 * Sets the directories to watch. Their current content is taken as the
+	 * starting point on the next poll, without reporting it as changed. The
+	 * version is increased though, since other files are watched now. The
+	 * directories are stored in their canonical form, so all reported files
+	 * are canonical too, as long as the directories do not contain symbolic
+	 * links themselves.
+	 */
+	public synchronized void setDirectories(File[] directories) {
+		this.directories = new File[directories.length];
+		paths = new String[directories.length];
+		for (int i = 0; i < directories.length; i++) {
+			File directory = getCanonicalFile(directories[i]);
+			this.directories[i] = directory;
+			paths[i] = directory.getPath() + File.separator;
+		}
+		rescan = true;
+		version++;
+	}
+
+	/**
+	 * Checks whether the file lies within one of the watched directories. This
+	 * only compares paths and does not access the file system, so the file
+	 * needs to be passed in its canonical form.
+	 *
+	 * @see #getCanonicalFile(File)
+	 */
+	public synchronized boolean isWatching(File file) {
+		String path = file.getAbsolutePath();
+		for (int i = 0; i < paths.length; i++) {
+			if (path.startsWith(paths[i]))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the canonical form of the file, with relative paths, . and ..
+	 * and symbolic links resolved, and the case of the names matching the
+	 * file system. Falls back to the absolute file if this fails.
+	 */
+	public static File getCanonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException e) {
+			return file.getAbsoluteFile();
+		}
+	}
+
+	/**
+	 * Returns a number that is increased each time changes are reported, so
+	 * callers can find out whether anything changed since they last looked.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public synchronized void dispose() {
+		running = false;
+		notify();
+	}
+
+	public void run() {
+		while (true) {
+			File[] directories;
+			boolean rescan;
+			synchronized (this) {
+				if (!running)
+					return;
+				directories = this.directories;
+				rescan = this.rescan;
+				this.rescan = false;
+			}
+			HashMap<File, Long> current = new HashMap<File, Long>();
+			HashMap<File, Listing> listings = new HashMap<File, Listing>();
+			for (int i = 0; i < directories.length; i++)
+				scan(directories[i], current, listings);
+			this.listings = listings;
+			File[] changed = null;
+			if (rescan) {
+				pending.clear();
+			} else {
+				long now = System.currentTimeMillis();
+				if (collectChanges(current))
+					lastChange = now;
+				if (!pending.isEmpty() && now - lastChange >= delay) {
+					changed = pending.toArray(new File[pending.size()]);
+					pending.clear();
+				}
+			}
+			modified = current;
+			if (changed != null && changed.length > 0) {
+				version++;
+				try {
+					listener.onChange(changed);
+				} catch (Throwable t) {
+					t.printStackTrace();
+				}
+			}
+			synchronized (this) {
+				if (!running)
+					return;
+				try {
+					wait(interval);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private boolean collectChanges(HashMap<File, Long> current) {
+		boolean changed = false;
+		for (Map.Entry<File, Long> entry : current.entrySet()) {
+			File file = entry.getKey();
+			if (!entry.getValue().equals(modified.get(file))) {
+				pending.add(file);
+				changed = true;
+			}
+		}
+		for (File file : modified.keySet()) {
+			if (!current.containsKey(file)) {
+				pending.add(file);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private void scan(File dir, HashMap<File, Long> modified,
+			HashMap<File, Listing> listings) {
+		Listing listing = this.listings.get(dir);
+		long dirModified = dir.lastModified();
+		if (listing == null || listing.modified != dirModified
+				|| listing.time - dirModified < LISTING_MARGIN) {
+			File[] files = dir.listFiles();
+			if (files == null)
+				return;
+			listing = new Listing(files, dirModified,
+					System.currentTimeMillis());
+		}
+		listings.put(dir, listing);
+		File[] files = listing.files;
+		for (int i = 0; i < files.length; i++) {
+			File file = files[i];
+			if (file.getName().startsWith("."))
+				continue;
+			// Files that disappeared report 0 and are not directories, so
+			// they are removed on the next listing of their directory.
+			long fileModified = file.lastModified();
+			if (fileModified == 0 || !listing.isDirectory(i, file))
+				modified.put(file, fileModified);
+			else
+				scan(file, modified, listings);
+		}
+	}
+
+	private static class Listing {
+		File[] files;
+		boolean[] directories;
+		boolean[] checked;
+		long modified;
+		long time;
+
+		Listing(File[] files, long modified, long time) {
+			this.files = files;
+			this.modified = modified;
+			this.time = time;
+			directories = new boolean[files.length];
+			checked = new boolean[files.length];
+		}
+
+		boolean isDirectory(int index, File file) {
+			if (!checked[index]) {
+				directories[index] = file.isDirectory();
+				checked[index] = true;
+			}
+			return directories[index];
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.scratchdisk.script.Scope;
+import com.scratchdisk.script.Script;
+import com.scratchdisk.script.ScriptEngine;
+import com.scratchdisk.script.ScriptException;
+
+/**
+ * Loads the libraries and init scripts on startup in three phases: The script
+ * directories are scanned first, then all found scripts are compiled in
+ * parallel on a pool of worker threads, while the main thread executes them
+ * one by one in the order in which they were found, as soon as each one is
+ * compiled.
+ *
+ * Only libraries and init scripts are compiled up front. Scripts that are
+ * pulled in through include() are compiled when they are first included.
+ *
+ * @author agent
+ */
+class ScriptLoader {
+	private ArrayList<Entry> entries = new ArrayList<Entry>();
+	private LinkedHashSet<ScriptEngine> engines =
+			new LinkedHashSet<ScriptEngine>();
+	private int cacheHits = 0;
+	private int cacheMisses = 0;
+	private long scanTime = 0;
+	private long compileTime = 0;
+	private long waitTime = 0;
+	private long executeTime = 0;
+	private long totalTime = 0;
+	private int threads = 1;
+
+	private static ExecutorService executor = null;
+
+	/**
+	 * Sorts files by name, as the order returned by File#listFiles() is not
+	 * defined, while the scripts need to execute in a stable order.
+	 */
+	private static final Comparator<File> nameComparator =
+			new Comparator<File>() {
+		public int compare(File file1, File file2) {
+			return file1.getName().compareTo(file2.getName());
+		}
+	};
+
+	private static class Entry {
+		File file;
+		ScriptEngine engine;
+		boolean global;
+		Future<Script> future;
+
+		Entry(File file, ScriptEngine engine, boolean global) {
+			this.file = file;
+			this.engine = engine;
+			this.global = global;
+		}
+	}
+
+	/**
+	 * Adds all scripts in the given folder and its sub-folders, to be executed
+	 * in the global scope.
+	 */
+	public void addLibraries(File dir) {
+		long start = System.nanoTime();
+		scanLibraries(dir);
+		scanTime += System.nanoTime() - start;
+	}
+
+	/**
+	 * Adds all scripts named __init__.* in the given folder and its
+	 * sub-folders, to be executed in their own scopes.
+	 */
+	public void addInitScripts(File dir) {
+		long start = System.nanoTime();
+		scanInitScripts(dir);
+		scanTime += System.nanoTime() - start;
+	}
+
+	private void scanLibraries(File dir) {
+		File[] files = listFiles(dir);
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				File file = files[i];
+				String name = file.getName();
+				if (file.isDirectory()) {
+					if (!name.startsWith(".") && !name.equals("CVS"))
+						scanLibraries(file);
+				} else {
+					ScriptEngine engine = ScriptEngine.getEngineByFile(file);
+					if (engine != null)
+						add(file, engine, true);
+				}
+			}
+		}
+	}
+
+	private void scanInitScripts(File dir) {
+		File[] files = listFiles(dir);
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				File file = files[i];
+				String name = file.getName();
+				if (file.isDirectory() && !name.startsWith(".")
+						&& !name.equals("CVS")) {
+					scanInitScripts(file);
+				} else if (name.startsWith("__init__")) {
+					// Files without an engine are reported when executing
+					add(file, ScriptEngine.getEngineByFile(file), false);
+				}
+			}
+		}
+	}
+
+	private void add(File file, ScriptEngine engine, boolean global) {
+		entries.add(new Entry(file, engine, global));
+		if (engine != null)
+			engines.add(engine);
+	}
+
+	private static File[] listFiles(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null)
+			Arrays.sort(files, nameComparator);
+		return files;
+	}
+
+	/**
+	 * Compiles and executes all added scripts. Errors are reported for each
+	 * script and do not stop the following ones from being executed.
+	 */
+	public void load() {
+		long start = System.nanoTime();
+		for (ScriptEngine engine : engines) {
+			cacheHits -= engine.getCacheHits();
+			cacheMisses -= engine.getCacheMisses();
+		}
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (processors > 1 && entries.size() > 1) {
+			threads = processors;
+			ExecutorService executor = getExecutor();
+			for (Entry entry : entries) {
+				if (entry.engine != null) {
+					final Entry compileEntry = entry;
+					entry.future = executor.submit(new Callable<Script>() {
+						public Script call() throws Exception {
+							return compile(compileEntry);
+						}
+					});
+				}
+			}
+		}
+		for (Entry entry : entries) {
+			try {
+				Script script;
+				if (entry.engine == null) {
+					throw new ScriptException(
+							"Unable to find script engine for " + entry.file);
+				} else if (entry.future != null) {
+					long wait = System.nanoTime();
+					try {
+						script = entry.future.get();
+					} finally {
+						waitTime += System.nanoTime() - wait;
+					}
+				} else {
+					script = compile(entry);
+				}
+				long execute = System.nanoTime();
+				try {
+					Scope scope = entry.global
+							? entry.engine.getGlobalScope()
+							: entry.engine.createScope();
+					ScriptographerEngine.execute(script, entry.file, scope);
+				} finally {
+					executeTime += System.nanoTime() - execute;
+				}
+			} catch (ExecutionException e) {
+				ScriptographerEngine.reportError(e.getCause());
+			} catch (Exception e) {
+				ScriptographerEngine.reportError(e);
+			}
+		}
+		for (ScriptEngine engine : engines) {
+			cacheHits += engine.getCacheHits();
+			cacheMisses += engine.getCacheMisses();
+		}
+		totalTime = scanTime + System.nanoTime() - start;
+	}
+
+	private Script compile(Entry entry) throws Exception {
+		long start = System.nanoTime();
+		try {
+			return ScriptographerEngine.compile(entry.file);
+		} finally {
+			long time = System.nanoTime() - start;
+			synchronized (this) {
+				compileTime += time;
+			}
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the time taken by each phase as a readable string. The compile
+	 * time is the sum over all threads, while the wait time is the part of it
+	 * that the main thread spent waiting for scripts to be compiled.
+	 */
+	public synchronized String getTimings() {
+		StringBuffer buf = new StringBuffer();
+		buf.append(toMillis(totalTime)).append(" ms (scan ");
+		buf.append(toMillis(scanTime)).append(" ms, compile ");
+		buf.append(toMillis(compileTime)).append(" ms");
+		if (threads > 1)
+			buf.append(" on ").append(threads).append(" threads, waiting ")
+					.append(toMillis(waitTime)).append(" ms");
+		buf.append(", execute ").append(toMillis(executeTime)).append(" ms");
+		// Only report the cache if it was used at all.
+		if (cacheHits + cacheMisses > 0)
+			buf.append("; ").append(cacheHits).append(" of ")
+					.append(cacheHits + cacheMisses).append(" from cache");
+		buf.append(")");
+		return buf.toString();
+	}
+
+	private static long toMillis(long nanos) {
+		return nanos / 1000000;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"Scriptographer Script Compiler");
+					// Do not keep the VM alive because of idle workers
+					thread.setDaemon(true);
+					thread.setContextClassLoader(
+							ScriptLoader.class.getClassLoader());
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+}
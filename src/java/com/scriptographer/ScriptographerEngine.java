@@ -138,9 +138,19 @@ public class ScriptographerEngine {
 		callbackScopes = new HashMap<String, ArrayList<Scope>>();
 		coreDir = new File(new File(pluginDir, "Core"), "JavaScript");
 		if (coreDir.isDirectory()) {
+			// Keep compiled scripts across launches, so unchanged scripts do
+			// not need to be compiled again.
+			ScriptEngine engine = ScriptEngine.getEngineByName("JavaScript");
+			if (engine != null)
+				engine.setCacheDirectory(
+						new File(new File(pluginDir, "Logs"), "cache"));
 			// Load the core libraries first.
-			loadLibraries(new File(coreDir, "lib"));
-			compileInitScripts(coreDir);
+			ScriptLoader loader = new ScriptLoader();
+			loader.addLibraries(new File(coreDir, "lib"));
+			loader.addInitScripts(coreDir);
+			loader.load();
+			System.out.println("Loaded core scripts in " + loader.getTimings());
+			watchScriptDirectories();
 		}
 	}
 
@@ -149,6 +159,7 @@ public class ScriptographerEngine {
 		ConsoleOutputStream.enableOutput(false);
 		ConsoleOutputStream.enableRedirection(false);
 		stopAll(true, true);
+		ScriptEngine.watchDirectories(null);
 		LiveEffect.removeAll();
 		MenuItem.removeAll();
 		Annotator.disposeAll();
@@ -172,13 +183,43 @@ public class ScriptographerEngine {
 
 	public static void setScriptDirectories(File[] directories) {
 		scriptDirectories = directories;
+		watchScriptDirectories();
 		// When setting script directories for error reporting, also compile
 		// init scripts within them.
-		for (int i = 0, l = scriptDirectories.length; i < l; i++) {
-			compileInitScripts(scriptDirectories[i]);
+		ScriptLoader loader = new ScriptLoader();
+		for (int i = 0, l = scriptDirectories.length; i < l; i++)
+			loader.addInitScripts(scriptDirectories[i]);
+		if (loader.size() > 0) {
+			loader.load();
+			System.out.println("Loaded init scripts in " + loader.getTimings());
 		}
 	}
 
+	/**
+	 * Watches the core and script directories, so changed scripts are
+	 * compiled again without each use of a script checking its file.
+	 */
+	private static void watchScriptDirectories() {
+		ArrayList<File> directories = new ArrayList<File>();
+		if (coreDir != null && coreDir.isDirectory())
+			directories.add(coreDir);
+		if (scriptDirectories != null) {
+			for (int i = 0, l = scriptDirectories.length; i < l; i++)
+				directories.add(scriptDirectories[i]);
+		}
+		ScriptEngine.watchDirectories(
+				directories.toArray(new File[directories.size()]));
+	}
+
+	/**
+	 * Returns a number that changes whenever scripts were added, removed or
+	 * modified in the core and script directories, so e.g. the script browser
+	 * only needs to refresh its lists if something changed.
+	 */
+	public static int getScriptVersion() {
+		return ScriptEngine.getWatchVersion();
+	}
+
 	public static String[] getScriptPath(File file, boolean hideCore) {
 		ArrayList<String> parts = new ArrayList<String>();
 		boolean loop = true;
@@ -211,55 +252,17 @@ public class ScriptographerEngine {
 	 * Executes all scripts named __init__.* in the given folder
 	 * 
 	 * @param dir
-	 * @throws IOException
-	 * @throws ScriptException
 	 */
 	protected static void compileInitScripts(File dir) {
-		File []files = dir.listFiles();
-		if (files != null) {
-			for (int i = 0; i < files.length; i++) {
-				File file = files[i];
-				String name = file.getName();
-				if (file.isDirectory() && !name.startsWith(".")
-						&& !name.equals("CVS")) {
-					compileInitScripts(file);
-				} else if (name.startsWith("__init__")) {
-					try {
-						ScriptEngine engine =
-								ScriptEngine.getEngineByFile(file);
-						if (engine == null)
-							throw new ScriptException(
-									"Unable to find script engine for " + file);
-						execute(file, engine.createScope());
-					} catch (Exception e) {
-						reportError(e);
-					}
-				}
-			}
-		}
+		ScriptLoader loader = new ScriptLoader();
+		loader.addInitScripts(dir);
+		loader.load();
 	}
 
 	protected static void loadLibraries(File dir) {
-		File[] files = dir.listFiles();
-		if (files != null) {
-			for (int i = 0; i < files.length; i++) {
-				File file = files[i];
-				String name = file.getName();
-				if (file.isDirectory() && !name.startsWith(".")
-						&& !name.equals("CVS")) {
-					loadLibraries(file);
-				} else {
-					try {
-						ScriptEngine engine =
-								ScriptEngine.getEngineByFile(file);
-						if (engine != null)
-							execute(file, engine.getGlobalScope());
-					} catch (Exception e) {
-						reportError(e);
-					}
-				}
-			}
-		}
+		ScriptLoader loader = new ScriptLoader();
+		loader.addLibraries(dir);
+		loader.load();
 	}
 
 	public static Preferences getPreferences(Script script) {
@@ -217,4 +217,14 @@ public class CompoundPath extends PathItem {
 		}
 		return curves;
 	}
+
+	protected List<Path> getAllPaths() {
+		Item child = getFirstChild();
+		ExtendedArrayList<Path> paths = new ExtendedArrayList<Path>();
+		while (child != null) {
+			paths.add((Path) child);
+			child = child.getNextSibling();
+		}
+		return paths;
+	}
 }
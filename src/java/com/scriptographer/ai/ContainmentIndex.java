@@ -0,0 +1,268 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import com.scratchdisk.list.List;
+
+/**
+ * A y-bucketed edge table over the flattened outline of a list of paths,
+ * used to determine winding numbers of many points quickly.
+ *
+ * The curves are flattened into lines through {@link PathFlattener}, and
+ * each line is added to all horizontal bands that it spans. The winding
+ * number at a point is then found by counting the signed crossings of a
+ * horizontal ray to its right with the lines in the point's band only.
+ * Queries do not allocate any objects.
+ *
+ * The band height is derived from the summed heights of all lines, so that
+ * the table never holds more than about three entries per line, however
+ * many bands the lines span.
+ *
+ * As the curves are flattened with a tolerance of {@link #FLATNESS}, points
+ * closer to the curves than that may be reported on the wrong side.
+ *
+ * Open paths are closed with a straight line, as they are when they are
+ * filled.
+ *
+ * For each contour, one point on its flattened outline is kept, to find out
+ * where contours lie relative to another index when no curves cross.
+ *
+ * @author agent
+ */
+class ContainmentIndex implements PathFlattener.Receiver {
+	// The maximum distance of the flattened lines from the curves
+	private static final double FLATNESS = 0.01;
+	private static final int MAX_BANDS = 1 << 16;
+
+	private PathVersions versions;
+
+	private double minX, minY, maxX, maxY;
+	private double bandScale;
+	private int bandCount;
+	// The first line of each band, with one more entry for the end
+	private int[] bandStart;
+	// The lines in each band, five values per line: the lower and upper y,
+	// the x at the lower y, the change of x per y, and the direction: 1 if
+	// the line goes upwards, -1 if it goes downwards.
+	private double[] bandLines;
+
+	// The flattened lines while building, four values per line
+	private double[] lines = new double[256];
+	private int lineCount;
+	// The first and the last point of the contour while flattening
+	private double startX, startY, lastX, lastY;
+	// One point on the outline of each contour, two values per contour
+	private double[] contourPoints = new double[8];
+	private int contourCount;
+	private boolean contourStarted;
+
+	protected ContainmentIndex(List<Path> paths) {
+		versions = new PathVersions(paths);
+		PathFlattener flattener = new PathFlattener(FLATNESS);
+		double[] values = null;
+		for (int i = 0, l = paths.size(); i < l; i++) {
+			Path path = paths.get(i);
+			SegmentList segments = path.getSegments();
+			int count = segments.size();
+			if (count == 0)
+				continue;
+			// Read all segment values in one go, without creating segments
+			values = segments.getValues(0, count, values);
+			flattener.flatten(values, 0, count, path.isClosed(), this);
+			// Close open paths with a straight line
+			addLine(lastX, lastY, startX, startY);
+		}
+		build();
+		lines = null;
+	}
+
+	protected boolean isValid(List<Path> paths) {
+		return versions.isValid(paths);
+	}
+
+	public void moveTo(double x, double y) {
+		startX = lastX = x;
+		startY = lastY = y;
+		contourStarted = true;
+	}
+
+	public void lineTo(double x, double y) {
+		if (contourStarted) {
+			// Use the middle of the first line rather than its start, which
+			// is a segment point and more likely to be shared with others.
+			addContourPoint((lastX + x) * 0.5, (lastY + y) * 0.5);
+			contourStarted = false;
+		}
+		addLine(lastX, lastY, x, y);
+		lastX = x;
+		lastY = y;
+	}
+
+	public void closePath() {
+	}
+
+	private void addContourPoint(double x, double y) {
+		if (contourCount * 2 == contourPoints.length) {
+			double[] tmp = new double[contourPoints.length * 2];
+			System.arraycopy(contourPoints, 0, tmp, 0, contourPoints.length);
+			contourPoints = tmp;
+		}
+		contourPoints[contourCount * 2] = x;
+		contourPoints[contourCount * 2 + 1] = y;
+		contourCount++;
+	}
+
+	private void addLine(double x1, double y1, double x2, double y2) {
+		// Horizontal lines are never crossed by the horizontal rays.
+		if (y1 == y2)
+			return;
+		if (lineCount * 4 == lines.length) {
+			double[] tmp = new double[lines.length * 2];
+			System.arraycopy(lines, 0, tmp, 0, lines.length);
+			lines = tmp;
+		}
+		int offset = lineCount++ * 4;
+		lines[offset] = x1;
+		lines[offset + 1] = y1;
+		lines[offset + 2] = x2;
+		lines[offset + 3] = y2;
+	}
+
+	/**
+	 * Sorts the lines into the bands that they span.
+	 */
+	private void build() {
+		minX = minY = Double.MAX_VALUE;
+		maxX = maxY = -Double.MAX_VALUE;
+		double height = 0;
+		for (int i = 0; i < lineCount; i++) {
+			int offset = i * 4;
+			for (int j = 0; j < 4; j += 2) {
+				double x = lines[offset + j], y = lines[offset + j + 1];
+				if (x < minX) minX = x;
+				if (x > maxX) maxX = x;
+				if (y < minY) minY = y;
+				if (y > maxY) maxY = y;
+			}
+			height += Math.abs(lines[offset + 3] - lines[offset + 1]);
+		}
+		// A line of height dy spans at most dy / bandHeight + 2 bands. With
+		// bandHeight = (maxY - minY) / bandCount, choosing bandCount as
+		// lineCount * (maxY - minY) / height keeps the sum over all lines
+		// below 3 * lineCount, e.g. for outlines where many lines span the
+		// full height.
+		double bands = height > 0 ? lineCount * (maxY - minY) / height : 1;
+		bandCount = (int) Math.max(1, Math.min(bands, MAX_BANDS));
+		bandScale = maxY > minY ? bandCount / (maxY - minY) : 0;
+		bandStart = new int[bandCount + 1];
+		for (int i = 0; i < lineCount; i++) {
+			int offset = i * 4;
+			double y1 = lines[offset + 1], y2 = lines[offset + 3];
+			int to = getBand(Math.max(y1, y2));
+			for (int j = getBand(Math.min(y1, y2)); j <= to; j++)
+				bandStart[j + 1]++;
+		}
+		for (int i = 0; i < bandCount; i++)
+			bandStart[i + 1] += bandStart[i];
+		bandLines = new double[bandStart[bandCount] * 5];
+		int[] position = new int[bandCount];
+		for (int i = 0; i < lineCount; i++) {
+			int offset = i * 4;
+			double x1 = lines[offset], y1 = lines[offset + 1];
+			double x2 = lines[offset + 2], y2 = lines[offset + 3];
+			double direction = 1;
+			if (y1 > y2) {
+				double tmp = x1;
+				x1 = x2;
+				x2 = tmp;
+				tmp = y1;
+				y1 = y2;
+				y2 = tmp;
+				direction = -1;
+			}
+			double slope = (x2 - x1) / (y2 - y1);
+			for (int j = getBand(y1), l = getBand(y2); j <= l; j++) {
+				int index = (bandStart[j] + position[j]++) * 5;
+				bandLines[index] = y1;
+				bandLines[index + 1] = y2;
+				bandLines[index + 2] = x1;
+				bandLines[index + 3] = slope;
+				bandLines[index + 4] = direction;
+			}
+		}
+	}
+
+	private int getBand(double y) {
+		return Math.max(0, Math.min(bandCount - 1,
+				(int) ((y - minY) * bandScale)));
+	}
+
+	/**
+	 * Returns the winding number of the outline at the given point. Lines
+	 * count if the ray lies within their half-open y range, so rays through
+	 * the points between two lines are counted exactly once.
+	 */
+	protected int getWinding(double x, double y) {
+		if (y < minY || y >= maxY || x >= maxX)
+			return 0;
+		int winding = 0;
+		int band = getBand(y);
+		for (int i = bandStart[band] * 5, l = bandStart[band + 1] * 5; i < l;
+				i += 5) {
+			double y1 = bandLines[i];
+			if (y >= y1 && y < bandLines[i + 1]
+					&& bandLines[i + 2] + (y - y1) * bandLines[i + 3] > x)
+				winding += (int) bandLines[i + 4];
+		}
+		return winding;
+	}
+
+	protected boolean contains(double x, double y, boolean evenOdd) {
+		int winding = getWinding(x, y);
+		return evenOdd ? (winding & 1) != 0 : winding != 0;
+	}
+
+	/**
+	 * Checks whether the point kept for any contour of the other index lies
+	 * within the area described by this one. If no curves of the two cross,
+	 * each contour lies completely inside or outside of it, so this tells
+	 * whether any contour does.
+	 */
+	protected boolean containsAnyContour(ContainmentIndex other,
+			boolean evenOdd) {
+		double[] points = other.contourPoints;
+		for (int i = 0, l = other.contourCount * 2; i < l; i += 2) {
+			if (contains(points[i], points[i + 1], evenOdd))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the points kept for all contours of the other index lie
+	 * within the area described by this one.
+	 *
+	 * @see #containsAnyContour(ContainmentIndex, boolean)
+	 */
+	protected boolean containsAllContours(ContainmentIndex other,
+			boolean evenOdd) {
+		double[] points = other.contourPoints;
+		for (int i = 0, l = other.contourCount * 2; i < l; i += 2) {
+			if (!contains(points[i], points[i + 1], evenOdd))
+				return false;
+		}
+		return true;
+	}
+}
@@ -31,6 +31,25 @@ public class Curve implements ChangeReceiver {
 
 	protected static final double EPSILON = 10e-5;
 
+	private static double lengthTolerance = 10e-7;
+	// One intersector per thread, as its buffers are reused for all calls to
+	// getIntersections().
+	private static ThreadLocal<CurveIntersector> intersector =
+		new ThreadLocal<CurveIntersector>() {
+			protected CurveIntersector initialValue() {
+				return new CurveIntersector();
+			}
+		};
+
+	// The polynomial coefficients of the curve, cached until the geometry of
+	// the segment list changes: ax, bx, cx, dx, ay, by, cy, dy, where d is
+	// the first point.
+	private double[] coefficients = null;
+	private int coefficientsVersion = -1;
+	// Whether the handles are zero, to prevent tangents of length 0
+	private boolean handle1Zero;
+	private boolean handle2Zero;
+
 	public Curve() {
 		segment1 = new Segment();
 		segment2 = new Segment();
@@ -146,6 +165,7 @@ public class Curve implements ChangeReceiver {
 
 	protected void setIndex(int i) {
 		index1 = i;
+		coefficientsVersion = -1;
 		updateSegments();
 	}
 
@@ -300,31 +320,17 @@ public class Curve implements ChangeReceiver {
 		return this.getHandle1().isSelected() && this.getHandle2().isSelected();
 	}
 
-	private static native double nativeGetLength(double p1x, double p1y,
-			double h1x, double h1y, double h2x, double h2y, double p2x,
-			double p2y);
-
 	/**
 	 * The approximated length of the curve in points.
 	 */
 	public double getLength() {
 		updateSegments();
-		Point point1 = segment1.point;
-		Point handle1 = segment1.handleOut;
-		Point handle2 = segment2.handleIn;
-		Point point2 = segment2.point;
-		return nativeGetLength(
-				point1.x, point1.y,
-				handle1.x + point1.x, handle1.y + point1.y,
-				handle2.x + point2.x, handle2.y + point2.y,
-				point2.x, point2.y
-		);
+		return getLength(getCurveValues());
 	}
 
 	public double getLength(double from, double to) {
 		updateSegments();
-		double[][] curve = getCurveValues();
-		return getLength(curve, from, to, curve);
+		return getLength(getCurveValues(), from, to);
 	}
 
 	/**
@@ -334,6 +340,25 @@ public class Curve implements ChangeReceiver {
 		return getLength(from, to);
 	}
 
+	/**
+	 * The absolute tolerance in points to which curve lengths are integrated.
+	 * 
+	 * @jshide
+	 */
+	public static double getLengthTolerance() {
+		return lengthTolerance;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public static void setLengthTolerance(double tolerance) {
+		if (tolerance <= 0)
+			throw new IllegalArgumentException(
+					"Length tolerance needs to be larger than 0");
+		lengthTolerance = tolerance;
+	}
+
 	public Rectangle getControlBounds() {
 		updateSegments();
 		return getControlBounds(getCurveValues());
@@ -343,14 +368,21 @@ public class Curve implements ChangeReceiver {
 	 * Instead of using the underlying AI functions and loose time for calling
 	 * natives, let's do the dirty work ourselves:
 	 */
+
 	/**
-	 * Returns the point on the curve at the specified position.
-	 * 
-	 * @param parameter the position at which to find the point as a value
-	 *        between 0 and 1.
+	 * Returns the polynomial coefficients of the curve, calculating them only
+	 * if the curve has changed since they were last calculated. Curves that do
+	 * not belong to a path have no version to check against, so their
+	 * coefficients are always calculated.
 	 */
-	public Point getPoint(double parameter) {
+	private double[] getCoefficients() {
 		updateSegments();
+		if (coefficients == null) {
+			coefficients = new double[8];
+		} else if (segments != null
+				&& coefficientsVersion == segments.geometryVersion) {
+			return coefficients;
+		}
 		Point point1 = segment1.point;
 		Point handle1 = segment1.handleOut;
 		Point handle2 = segment2.handleIn;
@@ -360,86 +392,139 @@ public class Curve implements ChangeReceiver {
 		double dx = point2.x - point1.x;
 		double cx = 3.0 * handle1.x;
 		double bx = 3.0 * (dx + handle2.x - handle1.x) - cx;
-		double ax = dx - cx - bx;
+		coefficients[0] = dx - cx - bx;
+		coefficients[1] = bx;
+		coefficients[2] = cx;
+		coefficients[3] = point1.x;
 
 		double dy = point2.y - point1.y;
 		double cy = 3.0 * handle1.y;
 		double by = 3.0 * (dy + handle2.y - handle1.y) - cy;
-		double ay = dy - cy - by;
-		
-		return new Point(
-				((ax * parameter + bx) * parameter + cx) * parameter + point1.x,
-				((ay * parameter + by) * parameter + cy) * parameter + point1.y
-		);
+		coefficients[4] = dy - cy - by;
+		coefficients[5] = by;
+		coefficients[6] = cy;
+		coefficients[7] = point1.y;
+
+		handle1Zero = handle1.x == 0 && handle1.y == 0;
+		handle2Zero = handle2.x == 0 && handle2.y == 0;
+		coefficientsVersion = segments != null ? segments.geometryVersion : -1;
+		return coefficients;
 	}
 
-	public Point getTangent(double parameter) {
-		updateSegments();
-		Point point1 = segment1.point;
-		Point handle1 = segment1.handleOut;
-		Point handle2 = segment2.handleIn;
-		Point point2 = segment2.point;
+	/**
+	 * Returns the parameter to evaluate the derivative at, preventing
+	 * tangents and normals of length 0 at the ends.
+	 */
+	private double getDerivativeParameter(double t) {
+		if (t == 0 && handle1Zero)
+			return 0.000000000001;
+		else if (t == 1 && handle2Zero)
+			return 0.999999999999;
+		return t;
+	}
 
+	/**
+	 * Returns the point on the curve at the specified position.
+	 * 
+	 * @param parameter the position at which to find the point as a value
+	 *        between 0 and 1.
+	 */
+	public Point getPoint(double parameter) {
+		double[] c = getCoefficients();
 		double t = parameter;
-		// prevent normals of length 0:
-		if (t == 0 && handle1.x == 0 && handle1.y == 0)
-			t = 0.000000000001;
-		else if (t == 1 && handle2.x == 0 && handle2.y == 0)
-			t = 0.999999999999;
-
-		// calculate the polynomial coefficients. caution: handles are relative
-		// to points
-		double dx = point2.x - point1.x;
-		double cx = 3.0 * handle1.x;
-		double bx = 3.0 * (dx + handle2.x - handle1.x) - cx;
-		double ax = dx - cx - bx;
+		return new Point(
+				((c[0] * t + c[1]) * t + c[2]) * t + c[3],
+				((c[4] * t + c[5]) * t + c[6]) * t + c[7]
+		);
+	}
 
-		double dy = point2.y - point1.y;
-		double cy = 3.0 * handle1.y;
-		double by = 3.0 * (dy + handle2.y - handle1.y) - cy;
-		double ay = dy - cy - by;
+	/**
+	 * Writes the point on the curve at the specified position to the array,
+	 * without creating a {@link Point} object.
+	 * 
+	 * @param parameter the position at which to find the point as a value
+	 *        between 0 and 1.
+	 * @param out the array to receive the x and y coordinates
+	 * @param offset the index in the array to write to
+	 * 
+	 * @jshide
+	 */
+	public void getPoint(double parameter, double[] out, int offset) {
+		double[] c = getCoefficients();
+		double t = parameter;
+		out[offset] = ((c[0] * t + c[1]) * t + c[2]) * t + c[3];
+		out[offset + 1] = ((c[4] * t + c[5]) * t + c[6]) * t + c[7];
+	}
 
+	public Point getTangent(double parameter) {
+		double[] c = getCoefficients();
+		double t = getDerivativeParameter(parameter);
 		// simply use the derivation of the bezier function
 		// for both the x and y coordinates:
 		return new Point(
-				(3.0 * ax * t + 2.0 * bx) * t + cx,
-				(3.0 * ay * t + 2.0 * by) * t + cy
+				(3.0 * c[0] * t + 2.0 * c[1]) * t + c[2],
+				(3.0 * c[4] * t + 2.0 * c[5]) * t + c[6]
 		);
 	}
 
-	public Point getNormal(double parameter) {
-		updateSegments();
-		Point point1 = segment1.point;
-		Point handle1 = segment1.handleOut;
-		Point handle2 = segment2.handleIn;
-		Point point2 = segment2.point;
-
-		double t = parameter;
-		// prevent normals of length 0:
-		if (t == 0 && handle1.x == 0 && handle1.y == 0)
-			t = 0.000000000001;
-		else if (t == 1 && handle2.x == 0 && handle2.y == 0)
-			t = 0.999999999999;
-
-		// calculate the polynomial coefficients. caution: handles are relative
-		// to points
-		double dx = point2.x - point1.x;
-		double cx = 3.0 * handle1.x;
-		double bx = 3.0 * (dx + handle2.x - handle1.x) - cx;
-		double ax = dx - cx - bx;
-
-		double dy = point2.y - point1.y;
-		double cy = 3.0 * handle1.y;
-		double by = 3.0 * (dy + handle2.y - handle1.y) - cy;
-		double ay = dy - cy - by;
+	/**
+	 * Writes the tangent vector of the curve at the specified position to
+	 * the array, without creating a {@link Point} object.
+	 * 
+	 * @jshide
+	 */
+	public void getTangent(double parameter, double[] out, int offset) {
+		double[] c = getCoefficients();
+		double t = getDerivativeParameter(parameter);
+		out[offset] = (3.0 * c[0] * t + 2.0 * c[1]) * t + c[2];
+		out[offset + 1] = (3.0 * c[4] * t + 2.0 * c[5]) * t + c[6];
+	}
 
+	public Point getNormal(double parameter) {
+		double[] c = getCoefficients();
+		double t = getDerivativeParameter(parameter);
 		// the normal is simply the rotated tangent:
 		return new Point(
-				(-3.0 * ay * t - 2.0 * by) * t - cy,
-				( 3.0 * ax * t + 2.0 * bx) * t + cx
+				(-3.0 * c[4] * t - 2.0 * c[5]) * t - c[6],
+				( 3.0 * c[0] * t + 2.0 * c[1]) * t + c[2]
 		);
 	}
 
+	/**
+	 * Writes the normal vector of the curve at the specified position to the
+	 * array, without creating a {@link Point} object.
+	 * 
+	 * @jshide
+	 */
+	public void getNormal(double parameter, double[] out, int offset) {
+		double[] c = getCoefficients();
+		double t = getDerivativeParameter(parameter);
+		out[offset] = (-3.0 * c[4] * t - 2.0 * c[5]) * t - c[6];
+		out[offset + 1] = (3.0 * c[0] * t + 2.0 * c[1]) * t + c[2];
+	}
+
+	/**
+	 * Evaluates the curve at all specified positions, writing the x and y
+	 * coordinates of each point to the array, without creating any objects.
+	 * 
+	 * @param parameters the positions as values between 0 and 1
+	 * @param out the array to receive the coordinates, or {@code null}
+	 * @return the array with the coordinates
+	 * 
+	 * @jshide
+	 */
+	public double[] getPoints(double[] parameters, double[] out) {
+		if (out == null || out.length < parameters.length * 2)
+			out = new double[parameters.length * 2];
+		double[] c = getCoefficients();
+		for (int i = 0, j = 0; i < parameters.length; i++, j += 2) {
+			double t = parameters[i];
+			out[j] = ((c[0] * t + c[1]) * t + c[2]) * t + c[3];
+			out[j + 1] = ((c[4] * t + c[5]) * t + c[6]) * t + c[7];
+		}
+		return out;
+	}
+
 	public double getParameter(Point point, double precision) {
 		updateSegments();
 		return getParameter(getCurveValues(), point.x, point.y,
@@ -472,13 +557,27 @@ public class Curve implements ChangeReceiver {
 		return param != -1 ? new CurveLocation(this, param, null) : null;
 	}
 
-	public CurveLocation[] getIntersections(Curve other) {
+	/**
+	 * Returns all intersections between this curve and the given curve.
+	 * 
+	 * @param tolerance the distance in points up to which the curves are
+	 *        considered to intersect {@default 10e-5}
+	 */
+	public CurveLocation[] getIntersections(Curve other, double tolerance) {
+		updateSegments();
+		other.updateSegments();
 		ArrayList<CurveLocation> intersections = new ArrayList<CurveLocation>();
-		getIntersections(this, getCurveValues(), other.getCurveValues(),
-				intersections);
+		CurveIntersector intersector = Curve.intersector.get();
+		intersector.setTolerance(tolerance);
+		intersector.getIntersections(this, getCurveValues(),
+				other.getCurveValues(), intersections);
 		return intersections.toArray(new CurveLocation[intersections.size()]);
 	}
 
+	public CurveLocation[] getIntersections(Curve other) {
+		return getIntersections(other, EPSILON);
+	}
+
 	/**
 	 * Checks if this curve is linear, meaning it does not define any curve
 	 * handle.
@@ -506,6 +605,8 @@ public class Curve implements ChangeReceiver {
 				(float) parameter);
 		segment1.setValues(values, 0);
 		segment2.setValues(values, SegmentList.VALUES_PER_SEGMENT);
+		if (segments != null)
+			segments.geometryVersion++;
 		// Don't mark dirty, commit immediately both as all the values have
 		// been modified:
 		Path path = getPath();
@@ -650,6 +751,63 @@ public class Curve implements ChangeReceiver {
 		};
 	}
 
+	/**
+	 * Fills the curve values into an existing array, so they can be reused
+	 * when iterating over many curves.
+	 */
+	protected double[][] getCurveValues(double[][] values) {
+		Point point1 = segment1.point;
+		Point handle1 = segment1.handleOut;
+		Point handle2 = segment2.handleIn;
+		Point point2 = segment2.point;
+		values[0][0] = point1.x;
+		values[0][1] = point1.y;
+		values[1][0] = point1.x + handle1.x;
+		values[1][1] = point1.y + handle1.y;
+		values[2][0] = point2.x + handle2.x;
+		values[2][1] = point2.y + handle2.y;
+		values[3][0] = point2.x;
+		values[3][1] = point2.y;
+		return values;
+	}
+
+	/**
+	 * Evaluates the curve at t and writes the point's coordinates to out at
+	 * the given index.
+	 */
+	protected static void getPoint(double[][] curve, double t, double[] out,
+			int index) {
+		double u = 1.0 - t;
+		double a = u * u * u, b = 3.0 * u * u * t, c = 3.0 * u * t * t,
+				d = t * t * t;
+		out[index] = a * curve[0][0] + b * curve[1][0] + c * curve[2][0]
+				+ d * curve[3][0];
+		out[index + 1] = a * curve[0][1] + b * curve[1][1] + c * curve[2][1]
+				+ d * curve[3][1];
+	}
+
+	/**
+	 * Evaluates the derivative of the curve at t and writes the tangent
+	 * vector to out at the given index.
+	 */
+	protected static void getTangent(double[][] curve, double t, double[] out,
+			int index) {
+		// prevent tangents of length 0:
+		if (t == 0 && curve[1][0] == curve[0][0] && curve[1][1] == curve[0][1])
+			t = 0.000000000001;
+		else if (t == 1 && curve[2][0] == curve[3][0]
+				&& curve[2][1] == curve[3][1])
+			t = 0.999999999999;
+		double u = 1.0 - t;
+		double a = 3.0 * u * u, b = 6.0 * u * t, c = 3.0 * t * t;
+		out[index] = a * (curve[1][0] - curve[0][0])
+				+ b * (curve[2][0] - curve[1][0])
+				+ c * (curve[3][0] - curve[2][0]);
+		out[index + 1] = a * (curve[1][1] - curve[0][1])
+				+ b * (curve[2][1] - curve[1][1])
+				+ c * (curve[3][1] - curve[2][1]);
+	}
+
 	/**
 	 * Curve subdivision at t = 0.5.
 	 */
@@ -739,83 +897,95 @@ public class Curve implements ChangeReceiver {
 	}
 
 	protected static double getLength(double curve[][]) {
-		return nativeGetLength(
-				curve[0][0], curve[0][1],
-				curve[1][0], curve[1][1],
-				curve[2][0], curve[2][1],
-				curve[3][0], curve[3][1]
-		);
+		// Linear curves have the distance between their points as length,
+		// regardless of how the parameter is distributed along them.
+		if (curve[0][0] == curve[1][0] && curve[0][1] == curve[1][1]
+				&& curve[3][0] == curve[2][0] && curve[3][1] == curve[2][1]) {
+			double dx = curve[3][0] - curve[0][0];
+			double dy = curve[3][1] - curve[0][1];
+			return Math.sqrt(dx * dx + dy * dy);
+		}
+		return getLength(curve, 0, 1, lengthTolerance);
 	}
 
-	protected static void getIntersections(Curve curve, double[][] curve1,
-			double[][] curve2, ArrayList<CurveLocation> intersections) {
-		boolean debug = false;
-		if (debug) {
-			Path rect = Document.getActiveDocument().createRectangle(
-					getControlBounds(curve1));
-			rect.setStrokeColor(java.awt.Color.green);
-			rect.setStrokeWidth(0.1f);
+	/*
+	 * Gauss-Legendre Numerical Integration of the curve length, as ported
+	 * from Paper.js. The abscissas and weights are the ones for n = 8 on the
+	 * interval [-1, 1]. Only the positive half is stored, since they are
+	 * symmetric.
+	 */
+	private static final double[] GAUSS_ABSCISSAS = {
+		0.1834346424956498, 0.5255324099163290,
+		0.7966664774136267, 0.9602898564975363
+	};
 
-			rect = Document.getActiveDocument().createRectangle(
-					getControlBounds(curve2));
-			rect.setStrokeColor(java.awt.Color.red);
-			rect.setStrokeWidth(0.1f);
-		}
-		Rectangle bounds1 = getControlBounds(curve1);
-		Rectangle bounds2 = getControlBounds(curve2);
-		// We are not using Rectangle#intersects() here, since in order to
-		// detect intersections that ly on curve bounds, we need to consider
-		// touching on one side of the tested rectangles as intersection as well
-		// If touch is condired at both sides, solutions lying on the border of
-		// bounds would turn up twice.
-		if (bounds1.x + bounds1.width >= bounds2.x
-				&& bounds1.y + bounds1.height >= bounds2.y
-				&& bounds1.x < bounds2.x + bounds2.width
-				&& bounds1.y < bounds2.y + bounds2.height) {
-			if (isFlatEnough(curve1) && isFlatEnough(curve2)) {
-				// Treat both curves as lines and see if their parametric
-				// equations interesct.
-				if (debug) {
-					Path line = Document.getActiveDocument().createLine(
-							new Point(curve1[0][0], curve1[0][1]),
-							new Point(curve1[3][0], curve1[3][1]));
-					line.setStrokeColor(java.awt.Color.green);
-					line.setStrokeWidth(0.1f);
-
-					line = Document.getActiveDocument().createLine(
-							new Point(curve2[0][0], curve2[0][1]),
-							new Point(curve2[3][0], curve2[3][1]));
-					line.setStrokeColor(java.awt.Color.red);
-					line.setStrokeWidth(0.1f);
-				}
-				Point point = Line.intersect(
-						curve1[0][0], curve1[0][1],
-						curve1[3][0], curve1[3][1], false,
-						curve2[0][0], curve2[0][1],
-						curve2[3][0], curve2[3][1], false);
-				// We need to provide the original left curve reference to the
-				// #getIntersections() calls as it is required for the returned
-				// CurveLocation instances.
-				// Passing -1 for parameter leads to lazy determination of
-				// parameter values in CurveLocation#getParameter() only once
-				// they are requested. This allows the use of CurveLocation
-				// without slow-downs in comparisson to simply returning points
-				// as long as only CurveLocation#getPoint() is called.
-				if (point != null)
-					intersections.add(new CurveLocation(curve, -1, point));
-			} else {
-				double curve1Left[][] = new double[4][];
-				double curve1Right[][] = new double[4][];
-				double curve2Left[][] = new double[4][];
-				double curve2Right[][] = new double[4][];
-				subdivide(curve1, curve1Left, curve1Right);
-				subdivide(curve2, curve2Left, curve2Right);
-				getIntersections(curve, curve1Left, curve2Left, intersections);
-				getIntersections(curve, curve1Left, curve2Right, intersections);
-				getIntersections(curve, curve1Right, curve2Left, intersections);
-				getIntersections(curve, curve1Right, curve2Right, intersections);
-			}
+	private static final double[] GAUSS_WEIGHTS = {
+		0.3626837833783620, 0.3137066458778873,
+		0.2223810344533745, 0.1012285362903763
+	};
+
+	// The maximum amount of interval bisections in the adaptive integration.
+	private static final int MAX_LENGTH_DEPTH = 16;
+
+	/**
+	 * Integrates the length of the curve between the parameters a and b,
+	 * subdividing the interval adaptively until the sum of both halves agrees
+	 * with the whole within tolerance.
+	 */
+	private static double getLength(double curve[][], double a, double b,
+			double tolerance) {
+		// Calculate the polynomial coefficients of the derivative.
+		double p1x = curve[0][0], p1y = curve[0][1];
+		double cx = 3.0 * (curve[1][0] - p1x);
+		double bx = 3.0 * (curve[2][0] - curve[1][0]) - cx;
+		double ax = curve[3][0] - p1x - cx - bx;
+		double cy = 3.0 * (curve[1][1] - p1y);
+		double by = 3.0 * (curve[2][1] - curve[1][1]) - cy;
+		double ay = curve[3][1] - p1y - cy - by;
+		return integrateLength(ax, bx, cx, ay, by, cy, a, b,
+				integrateLength(ax, bx, cx, ay, by, cy, a, b), tolerance,
+				MAX_LENGTH_DEPTH);
+	}
+
+	private static double integrateLength(double ax, double bx, double cx,
+			double ay, double by, double cy, double a, double b,
+			double whole, double tolerance, int depth) {
+		double m = (a + b) * 0.5;
+		double left = integrateLength(ax, bx, cx, ay, by, cy, a, m);
+		double right = integrateLength(ax, bx, cx, ay, by, cy, m, b);
+		double sum = left + right;
+		if (depth <= 0 || Math.abs(sum - whole) <= tolerance)
+			return sum;
+		tolerance *= 0.5;
+		return integrateLength(ax, bx, cx, ay, by, cy, a, m, left, tolerance,
+				depth - 1)
+				+ integrateLength(ax, bx, cx, ay, by, cy, m, b, right,
+						tolerance, depth - 1);
+	}
+
+	private static double integrateLength(double ax, double bx, double cx,
+			double ay, double by, double cy, double a, double b) {
+		double h = (b - a) * 0.5;
+		double m = (b + a) * 0.5;
+		double sum = 0;
+		for (int i = 0; i < 4; i++) {
+			double dt = h * GAUSS_ABSCISSAS[i];
+			sum += GAUSS_WEIGHTS[i]
+					* (getLengthIntegrand(ax, bx, cx, ay, by, cy, m + dt)
+					+ getLengthIntegrand(ax, bx, cx, ay, by, cy, m - dt));
 		}
+		return h * sum;
+	}
+
+	/**
+	 * The length integrand is the length of the derivative of the bezier
+	 * function at t.
+	 */
+	private static double getLengthIntegrand(double ax, double bx, double cx,
+			double ay, double by, double cy, double t) {
+		double dx = (3.0 * ax * t + 2.0 * bx) * t + cx;
+		double dy = (3.0 * ay * t + 2.0 * by) * t + cy;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 
 	private static boolean isFlatEnough(double[][] curve) {
@@ -836,6 +1006,21 @@ public class Curve implements ChangeReceiver {
 		return Math.max(ux * ux, vx * vx) + Math.max(uy * uy, vy * vy) < 1;
 	}
 
+	/**
+	 * The same criterion as {@link #isFlatEnough(double[][])}, for flat curve
+	 * values at the given offset and any maximum distance of the curve from
+	 * its chord: The fixed limit of 1 above corresponds to 0.25.
+	 */
+	protected static boolean isFlatEnough(double[] v, int offset,
+			double tolerance) {
+		double ux = 3 * v[offset + 2] - 2 * v[offset] - v[offset + 6];
+		double uy = 3 * v[offset + 3] - 2 * v[offset + 1] - v[offset + 7];
+		double vx = 3 * v[offset + 4] - 2 * v[offset + 6] - v[offset];
+		double vy = 3 * v[offset + 5] - 2 * v[offset + 7] - v[offset + 1];
+		return Math.max(ux * ux, vx * vx) + Math.max(uy * uy, vy * vy)
+				< 16 * tolerance * tolerance;
+	}
+
 	private static Rectangle getControlBounds(double[][] curve) {
 		double minX = curve[0][0], maxX = minX, minY = curve[0][1], maxY = minY;
 		for (int i = 1; i < 4; i++) {
@@ -854,66 +1039,64 @@ public class Curve implements ChangeReceiver {
 	}
 
 	protected static double getParameter(double[][] curve, double length) {
-		// TODO: Port root finding algorithm from Paper.js back
+		return getParameter(curve, length, getLength(curve));
+	}
+
+	/**
+	 * Variant of {@link #getParameter(double[][], double)} for callers that
+	 * know the curve's length already, e.g. from the curve offsets in
+	 * {@link Path}.
+	 */
+	protected static double getParameter(double[][] curve, double length,
+			double bezierLength) {
 		if (length <= 0)
 			return 0;
-		double bezierLength = getLength(curve);
 		if (length >= bezierLength)
 			return 1;
-		double[][] temp = new double[4][];
-		// Let's use the False Position method to find the right length in 
-		// few iterations. Generally only 4 - 7 are required.
-		double left = 0;
-		double right = 1;
-		double error = 5e-15;
-		double fLeft = getLeftLength(curve, left, temp) - length;
-		double fRight = getLeftLength(curve, right, temp) - length;
-		double res = 0;
-		int n = 0, side = 0;
-		do {
-			res = (fLeft * right - fRight * left) / (fLeft - fRight);
-			if (Math.abs(right - left) < error * Math.abs(right + left))
-				break;
-			double fRes = getLeftLength(curve, res, temp) - length;
-			if (fRes * fRight > 0) {
-				right = res; fRight = fRes;
-				if (side == -1)
-					fLeft /= 2;
-				side = -1;
-			} else if (fLeft * fRes > 0) {
-				left = res;  fLeft = fRes;
-				if (side == +1)
-					fRight /= 2;
-				side = +1;
-			} else {
+		// Calculate the polynomial coefficients of the derivative, for the
+		// Newton-Raphson steps below.
+		double p1x = curve[0][0], p1y = curve[0][1];
+		double cx = 3.0 * (curve[1][0] - p1x);
+		double bx = 3.0 * (curve[2][0] - curve[1][0]) - cx;
+		double ax = curve[3][0] - p1x - cx - bx;
+		double cy = 3.0 * (curve[1][1] - p1y);
+		double by = 3.0 * (curve[2][1] - curve[1][1]) - cy;
+		double ay = curve[3][1] - p1y - cy - by;
+		// Use Newton-Raphson iteration, with the length integrand as the
+		// derivative, and fall back on bisection whenever a step leaves the
+		// bracketing interval. Generally only 3 - 5 iterations are required.
+		// Each step only integrates the part between the previous and the new
+		// guess, so the cost does not grow with the curve length.
+		double left = 0, right = 1;
+		double t = length / bezierLength;
+		double tLength = getLength(curve, 0, t, lengthTolerance);
+		for (int n = 0; n < 32; n++) {
+			double f = tLength - length;
+			if (Math.abs(f) <= lengthTolerance)
 				break;
-			}
-		} while(n++ < 100);
-//		System.out.println("n: " + n + "r: " + res + "f(r): "
-//				+ getLeftLength(curve, res, temp) + ", len: " + length);
-		return res;
-	}
-
-	private static double getLeftLength(double curve[][], double parameter,
-			double tempCurve[][]) {
-		if (parameter == 0)
-			return 0;
-		if (parameter < 1) {
-			subdivide(curve, parameter, tempCurve, null);
-			curve = tempCurve;
+			if (f > 0)
+				right = t;
+			else
+				left = t;
+			double ds = getLengthIntegrand(ax, bx, cx, ay, by, cy, t);
+			double next = ds > 0 ? t - f / ds : left - 1;
+			if (!(next > left && next < right))
+				next = (left + right) * 0.5;
+			if (Math.abs(next - t) < 5e-15)
+				return next;
+			tLength += next > t
+					? getLength(curve, t, next, lengthTolerance)
+					: -getLength(curve, next, t, lengthTolerance);
+			t = next;
 		}
-		return getLength(curve);
+		return t;
 	}
 
 	/**
-	 * Curve is only modified if it is passed as tempCurve as well. this is
-	 * needed in #getLength() above...
-	 * 
-	 * TODO: Port Gauss-Legendre Numerical Integration method from Paper.js
-	 * to Scriptographer and stop relying on internal Adobe code.
+	 * Curve is never modified, the length between the two parameters is
+	 * integrated directly, without subdividing the curve first.
 	 */
-	private static double getLength(double curve[][], double from, double to,
-			double tempCurve[][]) {
+	private static double getLength(double curve[][], double from, double to) {
 		if (from > to) {
 			double temp = from;
 			from = to;
@@ -928,8 +1111,9 @@ public class Curve implements ChangeReceiver {
 		if (to > 1)
 			to = 1;
 
-		return getLeftLength(curve, to, tempCurve)
-			- getLeftLength(curve, from, tempCurve);
+		if (from == 0 && to == 1)
+			return getLength(curve);
+		return getLength(curve, from, to, lengthTolerance);
 	}
 
 	protected static double getParameter(double[][] curve, double x,
@@ -977,7 +1161,7 @@ public class Curve implements ChangeReceiver {
 		return -1;
 	}
 
-	private static int solveQuadraticRoots(double a, double b, double c,
+	protected static int solveQuadraticRoots(double a, double b, double c,
 			double roots[], double tolerance) {
 		// After Numerical Recipes in C, 2nd edition, Press et al.,
 		// 5.6, Quadratic and Cubic Equations
@@ -1008,8 +1192,8 @@ public class Curve implements ChangeReceiver {
 		return n; // 0, 1 or 2 solutions
 	}
 
-	private static int solveCubicRoots(double a, double b, double c, double d,
-			double roots[], double tolerance) {
+	protected static int solveCubicRoots(double a, double b, double c,
+			double d, double roots[], double tolerance) {
 		// After Numerical Recipes in C, 2nd edition, Press et al.,
 		// 5.6, Quadratic and Cubic Equations
 		if (Math.abs(a) < tolerance)
@@ -1036,7 +1220,7 @@ public class Curve implements ChangeReceiver {
 			roots[2] = q * Math.cos((theta - 2 * Math.PI) / 3) - b;
 			return 3;
 		} else { // One real root
-			double A = -Math.pow(Math.abs(R) + Math.sqrt(R2 - Q3), 1 / 3);
+			double A = -Math.pow(Math.abs(R) + Math.sqrt(R2 - Q3), 1 / 3.0);
 			if (R < 0) A = -A;
 			double B = (Math.abs(A) < tolerance) ? 0 : Q / A;
 			roots[0] = (A + B) - b;
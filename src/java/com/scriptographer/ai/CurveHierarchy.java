@@ -0,0 +1,580 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.scratchdisk.list.List;
+import com.scriptographer.ScriptographerException;
+
+/**
+ * A bounding volume hierarchy over the control bounds of all curves in a list
+ * of paths, used to find the pairs of curves that can intersect without
+ * testing all of them against each other, and the curves nearest to a point.
+ *
+ * The curve values are copied into a flat array when the hierarchy is built,
+ * so the curves do not need to be fetched from the native side again as long
+ * as the hierarchy is valid. This also allows the values to be processed
+ * outside the main thread.
+ *
+ * @author agent
+ */
+class CurveHierarchy {
+	// The maximum amount of curves in one leaf node
+	private static final int LEAF_SIZE = 4;
+	// The minimum amount of curve pairs per parallel task
+	private static final int PARALLEL_CHUNK = 256;
+	// Intersections closer than this to the end of a curve are no crossings
+	private static final double CROSSING_EPSILON = 1e-6;
+	// The minimum sine of the angle between two crossing curves
+	private static final double CROSSING_ANGLE = 1e-3;
+	// The amount of intervals each curve is sampled at to find the minima of
+	// the distance to a point, and the maximum amount of refinement steps
+	private static final int NEAREST_SAMPLES = 16;
+	private static final int NEAREST_ITERATIONS = 16;
+
+	protected Curve[] curves;
+	// The curve values, eight per curve: p1, h1, h2, p2, with absolute handles
+	protected double[] values;
+	protected int count;
+	// The control bounds of the curves, four per curve: minX, minY, maxX, maxY
+	private double[] curveBounds;
+	// The curve indices, ordered so that each node spans a continuous range
+	private int[] order;
+
+	private double[] nodeBounds;
+	private int[] nodeStart;
+	private int[] nodeEnd;
+	private int[] nodeLeft;
+	private int[] nodeRight;
+	private int nodeCount;
+
+	// The paths and their geometry versions at the time of building, to see
+	// when the hierarchy needs to be rebuilt.
+	private PathVersions versions;
+
+	private static ExecutorService executor = null;
+
+	protected CurveHierarchy(List<Path> paths) {
+		versions = new PathVersions(paths);
+		ArrayList<Curve> curves = new ArrayList<Curve>();
+		for (int i = 0, l = paths.size(); i < l; i++) {
+			CurveList list = paths.get(i).getCurves();
+			int size = list.size();
+			// Fetch all segments in one go rather than in small blocks
+			if (size > 0)
+				list.fetch(0, size);
+			for (int j = 0; j < size; j++)
+				curves.add(list.get(j));
+		}
+		count = curves.size();
+		this.curves = curves.toArray(new Curve[count]);
+		values = new double[count * 8];
+		double[][] curveValues = new double[4][2];
+		for (int i = 0; i < count; i++) {
+			this.curves[i].getCurveValues(curveValues);
+			int offset = i * 8;
+			for (int j = 0; j < 4; j++) {
+				values[offset + j * 2] = curveValues[j][0];
+				values[offset + j * 2 + 1] = curveValues[j][1];
+			}
+		}
+		build();
+	}
+
+	/**
+	 * Creates a hierarchy directly from curve values, eight per curve. Such a
+	 * hierarchy has no curve objects and can only be used to find overlaps and
+	 * nearest points.
+	 */
+	protected CurveHierarchy(double[] values, int count) {
+		this.values = values;
+		this.count = count;
+		versions = new PathVersions();
+		build();
+	}
+
+	private void build() {
+		curveBounds = new double[count * 4];
+		order = new int[count];
+		for (int i = 0; i < count; i++) {
+			int offset = i * 8;
+			for (int coord = 0; coord < 2; coord++) {
+				double min = values[offset + coord], max = min;
+				for (int j = 2; j < 8; j += 2) {
+					double value = values[offset + j + coord];
+					if (value < min)
+						min = value;
+					else if (value > max)
+						max = value;
+				}
+				curveBounds[i * 4 + coord] = min;
+				curveBounds[i * 4 + coord + 2] = max;
+			}
+			order[i] = i;
+		}
+		// A binary tree with leaves of at least one curve has less than
+		// twice as many nodes as curves.
+		int maxNodes = Math.max(count * 2, 1);
+		nodeBounds = new double[maxNodes * 4];
+		nodeStart = new int[maxNodes];
+		nodeEnd = new int[maxNodes];
+		nodeLeft = new int[maxNodes];
+		nodeRight = new int[maxNodes];
+		nodeCount = 0;
+		if (count > 0)
+			build(0, count);
+	}
+
+	/**
+	 * Checks whether the hierarchy still describes the given paths, by
+	 * comparing them and their geometry versions with the ones it was built
+	 * from.
+	 */
+	protected boolean isValid(List<Path> paths) {
+		return versions.isValid(paths);
+	}
+
+	private int build(int start, int end) {
+		int node = nodeCount++;
+		nodeStart[node] = start;
+		nodeEnd[node] = end;
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			int index = order[i] * 4;
+			minX = Math.min(minX, curveBounds[index]);
+			minY = Math.min(minY, curveBounds[index + 1]);
+			maxX = Math.max(maxX, curveBounds[index + 2]);
+			maxY = Math.max(maxY, curveBounds[index + 3]);
+		}
+		int index = node * 4;
+		nodeBounds[index] = minX;
+		nodeBounds[index + 1] = minY;
+		nodeBounds[index + 2] = maxX;
+		nodeBounds[index + 3] = maxY;
+		if (end - start <= LEAF_SIZE) {
+			nodeLeft[node] = nodeRight[node] = -1;
+		} else {
+			// Split at the median along the longer side of the node
+			int coord = maxX - minX >= maxY - minY ? 0 : 1;
+			int middle = (start + end) >>> 1;
+			select(start, end - 1, middle, coord);
+			nodeLeft[node] = build(start, middle);
+			nodeRight[node] = build(middle, end);
+		}
+		return node;
+	}
+
+	/**
+	 * Partially sorts order between left and right, so that the curve at k
+	 * is the one that would be there if they were sorted by the centers of
+	 * their bounds, and all curves before it have smaller centers.
+	 */
+	private void select(int left, int right, int k, int coord) {
+		while (right > left) {
+			double pivot = getCenter(order[(left + right) >>> 1], coord);
+			int i = left, j = right;
+			while (i <= j) {
+				while (getCenter(order[i], coord) < pivot)
+					i++;
+				while (getCenter(order[j], coord) > pivot)
+					j--;
+				if (i <= j) {
+					int tmp = order[i];
+					order[i++] = order[j];
+					order[j--] = tmp;
+				}
+			}
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else
+				break;
+		}
+	}
+
+	/**
+	 * Returns twice the center of the curve's bounds, which sorts the same.
+	 */
+	private double getCenter(int curve, int coord) {
+		int index = curve * 4 + coord;
+		return curveBounds[index] + curveBounds[index + 2];
+	}
+
+	private static boolean overlap(double[] bounds1, int index1,
+			double[] bounds2, int index2, double tolerance) {
+		return bounds1[index1] - tolerance <= bounds2[index2 + 2]
+				&& bounds2[index2] - tolerance <= bounds1[index1 + 2]
+				&& bounds1[index1 + 1] - tolerance <= bounds2[index2 + 3]
+				&& bounds2[index2 + 1] - tolerance <= bounds1[index1 + 3];
+	}
+
+	/**
+	 * Returns the pairs of curves from this and the other hierarchy whose
+	 * control bounds overlap within the tolerance, encoded as
+	 * {@code index1 * other.count + index2} and sorted, so they are in the
+	 * same order as when iterating over all pairs.
+	 */
+	protected long[] getOverlaps(CurveHierarchy other, double tolerance) {
+		if (count == 0 || other.count == 0)
+			return new long[0];
+		long[] pairs = new long[Math.max(count, other.count)];
+		int pairCount = 0;
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = 0;
+		while (stackSize > 0) {
+			int node2 = stack[--stackSize];
+			int node1 = stack[--stackSize];
+			if (!overlap(nodeBounds, node1 * 4, other.nodeBounds, node2 * 4,
+					tolerance))
+				continue;
+			boolean leaf1 = nodeLeft[node1] == -1;
+			boolean leaf2 = other.nodeLeft[node2] == -1;
+			if (leaf1 && leaf2) {
+				for (int i = nodeStart[node1], l = nodeEnd[node1]; i < l; i++) {
+					int curve1 = order[i];
+					for (int j = other.nodeStart[node2], m = other.nodeEnd[node2];
+							j < m; j++) {
+						int curve2 = other.order[j];
+						if (overlap(curveBounds, curve1 * 4, other.curveBounds,
+								curve2 * 4, tolerance)) {
+							if (pairCount == pairs.length) {
+								long[] tmp = new long[pairs.length * 2];
+								System.arraycopy(pairs, 0, tmp, 0, pairCount);
+								pairs = tmp;
+							}
+							pairs[pairCount++] =
+									(long) curve1 * other.count + curve2;
+						}
+					}
+				}
+			} else {
+				if (stackSize + 4 > stack.length) {
+					int[] tmp = new int[stack.length * 2];
+					System.arraycopy(stack, 0, tmp, 0, stackSize);
+					stack = tmp;
+				}
+				// Descend into the larger node, or the one that is no leaf
+				if (leaf2 || !leaf1 && getSize(nodeBounds, node1 * 4)
+						>= getSize(other.nodeBounds, node2 * 4)) {
+					stack[stackSize++] = nodeLeft[node1];
+					stack[stackSize++] = node2;
+					stack[stackSize++] = nodeRight[node1];
+					stack[stackSize++] = node2;
+				} else {
+					stack[stackSize++] = node1;
+					stack[stackSize++] = other.nodeLeft[node2];
+					stack[stackSize++] = node1;
+					stack[stackSize++] = other.nodeRight[node2];
+				}
+			}
+		}
+		long[] result = new long[pairCount];
+		System.arraycopy(pairs, 0, result, 0, pairCount);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the squared distance of the point from the bounds at the index,
+	 * or 0 if it lies inside them.
+	 */
+	private static double getDistance(double[] bounds, int index, double x,
+			double y) {
+		double dx = Math.max(0, Math.max(bounds[index] - x,
+				x - bounds[index + 2]));
+		double dy = Math.max(0, Math.max(bounds[index + 1] - y,
+				y - bounds[index + 3]));
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Creates a stack that is large enough for traversals of the hierarchy in
+	 * {@link #getNearest(double, double, double[], int[])}, so it can be
+	 * reused for many queries.
+	 */
+	protected int[] createStack() {
+		return new int[Math.max(nodeCount, 1)];
+	}
+
+	/**
+	 * Finds the location on all curves in the hierarchy that is nearest to
+	 * the given point. The nodes are visited closest first, and nodes and
+	 * curves whose control bounds are further away than the nearest location
+	 * found so far are skipped. The result is written to result, which needs
+	 * to hold four values: the index of the curve, the parameter, and the x
+	 * and y of the location.
+	 *
+	 * @param stack the traversal stack as created by {@link #createStack()},
+	 *        or {@code null}, in which case a new one is created
+	 * @return the squared distance, or -1 if there are no curves
+	 */
+	protected double getNearest(double x, double y, double[] result,
+			int[] stack) {
+		if (count == 0)
+			return -1;
+		if (stack == null)
+			stack = createStack();
+		double best = Double.MAX_VALUE;
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		while (stackSize > 0) {
+			int node = stack[--stackSize];
+			if (getDistance(nodeBounds, node * 4, x, y) >= best)
+				continue;
+			int left = nodeLeft[node];
+			if (left == -1) {
+				for (int i = nodeStart[node], l = nodeEnd[node]; i < l; i++) {
+					int curve = order[i];
+					if (getDistance(curveBounds, curve * 4, x, y) < best) {
+						double distance = getNearest(curve, x, y, best,
+								result);
+						if (distance < best)
+							best = distance;
+					}
+				}
+			} else {
+				// Push the closer child last, so it is processed first and
+				// allows pruning more of the other one.
+				int right = nodeRight[node];
+				if (getDistance(nodeBounds, left * 4, x, y)
+						< getDistance(nodeBounds, right * 4, x, y)) {
+					stack[stackSize++] = right;
+					stack[stackSize++] = left;
+				} else {
+					stack[stackSize++] = left;
+					stack[stackSize++] = right;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the location on the curve nearest to the point, and writes it to
+	 * result if its squared distance is smaller than best. The curve is
+	 * sampled to find the minima of the distance, which are then refined
+	 * through Newton iteration on the derivative of the squared distance,
+	 * (B(t) - p) · B'(t).
+	 *
+	 * @return the squared distance of the nearest location
+	 */
+	private double getNearest(int curve, double x, double y, double best,
+			double[] result) {
+		int offset = curve * 8;
+		// The polynomial coefficients of the curve, with the curve being
+		// a * t^3 + b * t^2 + c * t + p1 for both coordinates.
+		double p1x = values[offset], p1y = values[offset + 1];
+		double cx = 3 * (values[offset + 2] - p1x);
+		double bx = 3 * (values[offset + 4] - values[offset + 2]) - cx;
+		double ax = values[offset + 6] - p1x - cx - bx;
+		double cy = 3 * (values[offset + 3] - p1y);
+		double by = 3 * (values[offset + 5] - values[offset + 3]) - cy;
+		double ay = values[offset + 7] - p1y - cy - by;
+		double minDistance = Double.MAX_VALUE;
+		// The squared distances at the previous two samples
+		double previous2 = Double.MAX_VALUE, previous = Double.MAX_VALUE;
+		for (int i = 0; i <= NEAREST_SAMPLES + 1; i++) {
+			double distance = Double.MAX_VALUE;
+			if (i <= NEAREST_SAMPLES) {
+				double t = (double) i / NEAREST_SAMPLES;
+				double dx = ((ax * t + bx) * t + cx) * t + p1x - x;
+				double dy = ((ay * t + by) * t + cy) * t + p1y - y;
+				distance = dx * dx + dy * dy;
+			}
+			// Refine the sample before this one if it is a local minimum,
+			// within the interval to its neighbours.
+			if (i > 0 && previous <= previous2 && previous <= distance) {
+				int sample = i - 1;
+				double min = Math.max(0, (sample - 1.0) / NEAREST_SAMPLES);
+				double max = Math.min(1, (sample + 1.0) / NEAREST_SAMPLES);
+				double t = (double) sample / NEAREST_SAMPLES;
+				for (int j = 0; j < NEAREST_ITERATIONS; j++) {
+					double px = ((ax * t + bx) * t + cx) * t + p1x - x;
+					double py = ((ay * t + by) * t + cy) * t + p1y - y;
+					double d1x = (3 * ax * t + 2 * bx) * t + cx;
+					double d1y = (3 * ay * t + 2 * by) * t + cy;
+					double d2x = 6 * ax * t + 2 * bx;
+					double d2y = 6 * ay * t + 2 * by;
+					double f = px * d1x + py * d1y;
+					double df = d1x * d1x + d1y * d1y + px * d2x + py * d2y;
+					if (df <= 0)
+						break;
+					double next = Math.max(min, Math.min(max, t - f / df));
+					if (Math.abs(next - t) < Curve.EPSILON * Curve.EPSILON) {
+						t = next;
+						break;
+					}
+					t = next;
+				}
+				double px = ((ax * t + bx) * t + cx) * t + p1x;
+				double py = ((ay * t + by) * t + cy) * t + p1y;
+				double dx = px - x, dy = py - y;
+				double refined = dx * dx + dy * dy;
+				// Newton iteration may end up further away than the sample
+				if (refined > previous) {
+					t = (double) sample / NEAREST_SAMPLES;
+					px = ((ax * t + bx) * t + cx) * t + p1x;
+					py = ((ay * t + by) * t + cy) * t + p1y;
+					refined = previous;
+				}
+				if (refined < minDistance)
+					minDistance = refined;
+				if (refined < best) {
+					best = refined;
+					result[0] = curve;
+					result[1] = t;
+					result[2] = px;
+					result[3] = py;
+				}
+			}
+			previous2 = previous;
+			previous = distance;
+		}
+		return minDistance;
+	}
+
+	private static double getSize(double[] bounds, int index) {
+		return bounds[index + 2] - bounds[index] + bounds[index + 3]
+				- bounds[index + 1];
+	}
+
+	/**
+	 * Adds the intersections of all curves in this hierarchy with the ones in
+	 * the other to locations, in the order of the curves. Only the pairs
+	 * whose control bounds overlap are passed on to the intersector. If
+	 * parallel is true and there are enough pairs, they are intersected in
+	 * parallel, in chunks of continuous pairs.
+	 */
+	protected void getIntersections(CurveHierarchy other, double tolerance,
+			boolean parallel, ArrayList<CurveLocation> locations) {
+		long[] pairs = getOverlaps(other, tolerance);
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (parallel && processors > 1
+				&& pairs.length >= PARALLEL_CHUNK * 2) {
+			int chunks = Math.min(processors * 4,
+					pairs.length / PARALLEL_CHUNK);
+			ArrayList<Future<ArrayList<CurveLocation>>> futures =
+					new ArrayList<Future<ArrayList<CurveLocation>>>(chunks);
+			ExecutorService executor = getExecutor();
+			for (int i = 0; i < chunks; i++) {
+				final CurveHierarchy hierarchy2 = other;
+				final long[] chunkPairs = pairs;
+				final double chunkTolerance = tolerance;
+				final int from = (int) ((long) pairs.length * i / chunks);
+				final int to = (int) ((long) pairs.length * (i + 1) / chunks);
+				futures.add(executor.submit(
+						new Callable<ArrayList<CurveLocation>>() {
+					public ArrayList<CurveLocation> call() {
+						ArrayList<CurveLocation> result =
+								new ArrayList<CurveLocation>();
+						getIntersections(hierarchy2, chunkPairs, from, to,
+								new CurveIntersector(chunkTolerance), result);
+						return result;
+					}
+				}));
+			}
+			try {
+				for (Future<ArrayList<CurveLocation>> future : futures)
+					locations.addAll(future.get());
+			} catch (InterruptedException e) {
+				throw new ScriptographerException(e);
+			} catch (ExecutionException e) {
+				throw new ScriptographerException(e.getCause());
+			}
+		} else {
+			getIntersections(other, pairs, 0, pairs.length,
+					new CurveIntersector(tolerance), locations);
+		}
+	}
+
+	/**
+	 * Checks whether any curve in this hierarchy crosses one in the other at
+	 * a clear angle. Intersections at the ends of curves and tangential ones
+	 * are not considered, as they do not prove that the areas on both sides
+	 * overlap.
+	 */
+	protected boolean hasCrossings(CurveHierarchy other, double tolerance) {
+		long[] pairs = getOverlaps(other, tolerance);
+		CurveIntersector intersector = new CurveIntersector(tolerance);
+		double[] tangent1 = new double[2], tangent2 = new double[2];
+		for (int i = 0; i < pairs.length; i++) {
+			int curve1 = (int) (pairs[i] / other.count);
+			int curve2 = (int) (pairs[i] % other.count);
+			int count = intersector.getParameters(values, curve1 * 8,
+					other.values, curve2 * 8);
+			double[] parameters = intersector.parameters;
+			for (int j = 0; j < count; j++) {
+				double t = parameters[j * 2], u = parameters[j * 2 + 1];
+				if (t < CROSSING_EPSILON || t > 1 - CROSSING_EPSILON
+						|| u < CROSSING_EPSILON || u > 1 - CROSSING_EPSILON)
+					continue;
+				CurveIntersector.getDerivative(values, curve1 * 8, t,
+						tangent1);
+				CurveIntersector.getDerivative(other.values, curve2 * 8, u,
+						tangent2);
+				double cross = tangent1[0] * tangent2[1]
+						- tangent1[1] * tangent2[0];
+				double length = Math.sqrt(
+						(tangent1[0] * tangent1[0] + tangent1[1] * tangent1[1])
+						* (tangent2[0] * tangent2[0]
+						+ tangent2[1] * tangent2[1]));
+				if (Math.abs(cross) > length * CROSSING_ANGLE)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private void getIntersections(CurveHierarchy other, long[] pairs,
+			int from, int to, CurveIntersector intersector,
+			ArrayList<CurveLocation> locations) {
+		for (int i = from; i < to; i++) {
+			long pair = pairs[i];
+			int curve1 = (int) (pair / other.count);
+			int curve2 = (int) (pair % other.count);
+			intersector.getIntersections(curves[curve1], values, curve1 * 8,
+					other.values, curve2 * 8, locations);
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(
+					Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"Scriptographer Curve Intersections");
+					// Do not keep the VM alive because of idle workers
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+}
@@ -0,0 +1,930 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import java.util.ArrayList;
+
+/**
+ * Finds the intersections of two curves through Bezier clipping, as described
+ * by Sederberg and Nishita: Each curve is clipped against the fat line that
+ * bounds the other one, which converges quadratically towards the
+ * intersections, and is only subdivided if clipping removes less than 20% of
+ * the parameter range. Where the curves touch, clipping only converges
+ * linearly, so once the recursion gets too deep, the closest points of the
+ * remaining parts are compared instead.
+ *
+ * All intermediate curves are stored in buffers that are allocated once per
+ * intersector, as the recursion first reaches them, so one instance can be
+ * reused to intersect many curve pairs without producing garbage. Instances
+ * are not thread-safe.
+ *
+ * Curve values are stored in flat arrays of eight values here:
+ * { p1x, p1y, h1x, h1y, h2x, h2y, p2x, p2y }, with absolute handles.
+ *
+ * @author agent
+ */
+class CurveIntersector {
+	// Limits to prevent endless recursions in degenerate cases
+	private static final int MAX_DEPTH = 40;
+	private static final int MAX_CALLS = 4096;
+	// Parameter ranges smaller than this cannot be clipped any further.
+	private static final double PARAMETER_EPSILON = 1e-12;
+
+	private double tolerance;
+
+	// Three buffers per recursion level: the clipped part, and the two halves
+	// when it needs to be subdivided. Most pairs only need a few levels, so
+	// they are allocated through getBuffer() when first used.
+	private double[][] buffers = new double[MAX_DEPTH * 3][];
+	private double[] values1 = new double[8];
+	private double[] values2 = new double[8];
+	// The convex hull of the distances of a curve to a fat line, as indices
+	// into the four hull points.
+	private int[] hullTop = new int[4];
+	private int[] hullBottom = new int[4];
+	private int hullTopLength, hullBottomLength;
+	private double[] hullY = new double[4];
+	private static final double[] HULL_X = { 0, 1 / 3.0, 2 / 3.0, 1 };
+	// The intersections found for the current pair, to filter out doubles
+	private double[] found = new double[32];
+	private int foundCount;
+	private double[] overlaps = new double[4];
+	private double[] point = new double[2];
+	private double[] tangent = new double[2];
+	private double[][] curveValues = new double[4][2];
+	private double[] roots = new double[3];
+	private double[] splits = new double[4];
+	private double[] splitValues = new double[4];
+
+	private Curve curve;
+	private ArrayList<CurveLocation> locations;
+	// When only the parameters are requested, they are stored here as pairs
+	// of parameters on the first and the second curve.
+	protected double[] parameters = new double[8];
+	protected int parameterCount;
+
+	/**
+	 * @param tolerance the distance in points up to which curves are
+	 *        considered to intersect and below which intersections are merged
+	 */
+	protected CurveIntersector(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	protected CurveIntersector() {
+		this(Curve.EPSILON);
+	}
+
+	/**
+	 * Changes the tolerance, so instances can be kept and reused for
+	 * intersections with differing tolerances.
+	 */
+	protected void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Adds the intersections between curve1 and curve2 to locations, as
+	 * CurveLocation objects on curve, which is the curve described by
+	 * curve1.
+	 */
+	protected void getIntersections(Curve curve, double[][] curve1,
+			double[][] curve2, ArrayList<CurveLocation> locations) {
+		getIntersections(curve, getValues(curve1, values1),
+				getValues(curve2, values2), locations);
+	}
+
+	/**
+	 * Same as {@link #getIntersections(Curve, double[][], double[][],
+	 * ArrayList)}, but reads the curves as eight flat values from the given
+	 * arrays at the given offsets.
+	 */
+	protected void getIntersections(Curve curve, double[] curves1,
+			int offset1, double[] curves2, int offset2,
+			ArrayList<CurveLocation> locations) {
+		System.arraycopy(curves1, offset1, values1, 0, 8);
+		System.arraycopy(curves2, offset2, values2, 0, 8);
+		getIntersections(curve, values1, values2, locations);
+	}
+
+	/**
+	 * Finds the intersections between two curves read as eight flat values
+	 * from the given arrays at the given offsets, without creating any
+	 * locations. The parameters on both curves are stored in
+	 * {@link #parameters} instead.
+	 *
+	 * @return the amount of intersections found
+	 */
+	protected int getParameters(double[] curves1, int offset1,
+			double[] curves2, int offset2) {
+		parameterCount = 0;
+		System.arraycopy(curves1, offset1, values1, 0, 8);
+		System.arraycopy(curves2, offset2, values2, 0, 8);
+		getIntersections(null, values1, values2, null);
+		return parameterCount / 2;
+	}
+
+	private void getIntersections(Curve curve, double[] v1, double[] v2,
+			ArrayList<CurveLocation> locations) {
+		// Exclude the pair through its control bounds first, allowing the
+		// tolerance, as in that case the curves cannot intersect.
+		if (!boundsOverlap(v1, v2))
+			return;
+		this.curve = curve;
+		this.locations = locations;
+		foundCount = 0;
+		int overlapCount = getOverlaps(v1, v2);
+		if (overlapCount == 2) {
+			// The curves overlap between the two found parameters, report
+			// the ends of the overlapping part.
+			addLocation(v1, overlaps[0], overlaps[1]);
+			addLocation(v1, overlaps[2], overlaps[3]);
+		} else {
+			// Handle touching end points first, since clipping misses them
+			// sometimes, and they are preferred over approximated locations
+			// close to them.
+			for (int i = 0; i < 4; i++) {
+				int t1 = i >> 1, t2 = i & 1;
+				int i1 = t1 * 6, i2 = t2 * 6;
+				if (Math.abs(v1[i1] - v2[i2]) < tolerance
+						&& Math.abs(v1[i1 + 1] - v2[i2 + 1]) < tolerance)
+					addLocation(v1, t1, t2);
+			}
+			// End points may also just touch the other curve somewhere in
+			// between its ends, where neither the root finding nor clipping
+			// reliably find them.
+			for (int i = 0; i < 4; i++) {
+				boolean second = i > 1;
+				int end = i & 1, j = end * 6;
+				double[] v = second ? v2 : v1, other = second ? v1 : v2;
+				double x = v[j], y = v[j + 1];
+				double t = isInFatLine(other, x, y)
+						? getParameter(other, x, y) : -1;
+				if (t != -1) {
+					if (second)
+						addLocation(v1, t, end);
+					else
+						addLocation(v1, end, t);
+				}
+			}
+			boolean straight1 = isStraight(v1), straight2 = isStraight(v2);
+			if (straight1 && straight2) {
+				addLineIntersection(v1, v2);
+			} else if (straight1 || straight2) {
+				addCurveLineIntersections(v1, v2, straight1);
+			} else {
+				addCurveIntersections(v1, v2, false, 0, 0, 0, 1, 0, 1);
+			}
+		}
+		this.curve = null;
+		this.locations = null;
+	}
+
+	private double[] getBuffer(int index) {
+		double[] buffer = buffers[index];
+		if (buffer == null)
+			buffer = buffers[index] = new double[8];
+		return buffer;
+	}
+
+	private int addCurveIntersections(double[] v1, double[] v2, boolean flip,
+			int depth, int calls, double tMin, double tMax, double uMin,
+			double uMax) {
+		if (++calls >= MAX_CALLS)
+			return calls;
+		if (depth >= MAX_DEPTH) {
+			// Clipping stopped shrinking the curves quickly enough, which is
+			// what happens where they touch: The fat lines then only cut off
+			// a little on each step. Check the distance of the remaining
+			// parts instead.
+			addNearestLocation(v1, v2, flip, tMin, tMax, uMin, uMax);
+			return calls;
+		}
+		// The fat line of v2: its baseline through its end points, and the
+		// distances of the handles from it.
+		double q0x = v2[0], q0y = v2[1], q3x = v2[6], q3y = v2[7];
+		double d1 = getSignedDistance(q0x, q0y, q3x, q3y, v2[2], v2[3]);
+		double d2 = getSignedDistance(q0x, q0y, q3x, q3y, v2[4], v2[5]);
+		double factor = d1 * d2 > 0 ? 3 / 4.0 : 4 / 9.0;
+		double dMin = factor * Math.min(0, Math.min(d1, d2));
+		double dMax = factor * Math.max(0, Math.max(d1, d2));
+		// The distances of v1's control points from the baseline
+		double dp0 = getSignedDistance(q0x, q0y, q3x, q3y, v1[0], v1[1]);
+		double dp1 = getSignedDistance(q0x, q0y, q3x, q3y, v1[2], v1[3]);
+		double dp2 = getSignedDistance(q0x, q0y, q3x, q3y, v1[4], v1[5]);
+		double dp3 = getSignedDistance(q0x, q0y, q3x, q3y, v1[6], v1[7]);
+		// Collinear curves are handled through getOverlaps().
+		if (d1 == 0 && d2 == 0 && dp0 == 0 && dp1 == 0 && dp2 == 0
+				&& dp3 == 0)
+			return calls;
+		getConvexHull(dp0, dp1, dp2, dp3);
+		double tMinClip = clipConvexHull(false, dMin, dMax);
+		if (Double.isNaN(tMinClip))
+			return calls;
+		double tMaxClip = clipConvexHull(true, dMin, dMax);
+		if (Double.isNaN(tMaxClip))
+			return calls;
+		// Clip v1 to the range within the fat line
+		double tMinNew = tMin + (tMax - tMin) * tMinClip;
+		double tMaxNew = tMin + (tMax - tMin) * tMaxClip;
+		int index = depth * 3;
+		double[] part = getBuffer(index);
+		getPart(v1, tMinClip, tMaxClip, part);
+		double uDiff = uMax - uMin;
+		boolean small2 = getExtent(v2) < tolerance
+				|| uDiff < PARAMETER_EPSILON;
+		if (small2 && (getExtent(part) < tolerance
+				|| tMaxNew - tMinNew < PARAMETER_EPSILON)) {
+			// Parts that only became small through their parameter ranges
+			// may still lie apart, e.g. when the baseline of the fat line
+			// degenerated, so check their distance first.
+			getPoint(part, 0.5, point);
+			double x = point[0], y = point[1];
+			getPoint(v2, 0.5, point);
+			double distance = tolerance
+					+ (getExtent(part) + getExtent(v2)) * 0.5;
+			if (Math.abs(point[0] - x) < distance
+					&& Math.abs(point[1] - y) < distance) {
+				double t = (tMinNew + tMaxNew) * 0.5;
+				double u = (uMin + uMax) * 0.5;
+				// Only the locations on the first curve are reported.
+				if (flip)
+					addLocation(values1, u, t);
+				else
+					addLocation(values1, t, u);
+			}
+		} else if (tMaxClip - tMinClip > 0.8) {
+			// Clipping did not remove enough, subdivide the curve with the
+			// larger parameter range.
+			double[] left = getBuffer(index + 1);
+			double[] right = getBuffer(index + 2);
+			if (tMaxNew - tMinNew > uDiff) {
+				subdivide(part, left, right);
+				double t = (tMinNew + tMaxNew) * 0.5;
+				calls = addCurveIntersections(v2, left, !flip, depth + 1,
+						calls, uMin, uMax, tMinNew, t);
+				calls = addCurveIntersections(v2, right, !flip, depth + 1,
+						calls, uMin, uMax, t, tMaxNew);
+			} else {
+				subdivide(v2, left, right);
+				double u = (uMin + uMax) * 0.5;
+				calls = addCurveIntersections(left, part, !flip, depth + 1,
+						calls, uMin, u, tMinNew, tMaxNew);
+				calls = addCurveIntersections(right, part, !flip, depth + 1,
+						calls, u, uMax, tMinNew, tMaxNew);
+			}
+		} else if (!small2) {
+			// Swap the curves and clip the other one next.
+			calls = addCurveIntersections(v2, part, !flip, depth + 1, calls,
+					uMin, uMax, tMinNew, tMaxNew);
+		} else {
+			// The other curve cannot be clipped any further, so keep
+			// clipping this one.
+			calls = addCurveIntersections(part, v2, flip, depth + 1, calls,
+					tMinNew, tMaxNew, uMin, uMax);
+		}
+		return calls;
+	}
+
+	/**
+	 * Intersects two straight curves directly. Since their parameter is not
+	 * linear along the line, the parameter is determined on the curve
+	 * afterwards.
+	 */
+	private void addLineIntersection(double[] v1, double[] v2) {
+		Point point = Line.intersect(
+				v1[0], v1[1], v1[6], v1[7], false,
+				v2[0], v2[1], v2[6], v2[7], false);
+		if (point != null) {
+			double t = getParameter(v1, point.x, point.y);
+			double u = getParameter(v2, point.x, point.y);
+			if (t != -1 && u != -1)
+				addLocation(v1, t, u);
+		}
+	}
+
+	/**
+	 * Intersects a curve with a straight one by finding the roots of the
+	 * curve's distance function to the line, which also finds tangential
+	 * intersections that clipping only approximates slowly.
+	 */
+	private void addCurveLineIntersections(double[] v1, double[] v2,
+			boolean flip) {
+		double[] curve = flip ? v2 : v1, line = flip ? v1 : v2;
+		double px = line[0], py = line[1], qx = line[6], qy = line[7];
+		// The distances of the control points are the coefficients of the
+		// distance function in Bernstein form, convert them to the power
+		// basis.
+		double d0 = getSignedDistance(px, py, qx, qy, curve[0], curve[1]);
+		double d1 = getSignedDistance(px, py, qx, qy, curve[2], curve[3]);
+		double d2 = getSignedDistance(px, py, qx, qy, curve[4], curve[5]);
+		double d3 = getSignedDistance(px, py, qx, qy, curve[6], curve[7]);
+		double a = d3 - 3 * d2 + 3 * d1 - d0, b = 3 * d2 - 6 * d1 + 3 * d0,
+				c = 3 * d1 - 3 * d0, d = d0;
+		// Split the curve at the extrema of the distance function into
+		// parts along which it is monotonic. Solving the cubic directly loses
+		// double roots, which are exactly the places where the curve touches
+		// the line.
+		double[] splits = this.splits, values = splitValues;
+		double[] roots = this.roots;
+		int count = 1;
+		splits[0] = 0;
+		int rootCount = Curve.solveQuadraticRoots(3 * a, 2 * b, c, roots,
+				10e-10);
+		if (rootCount == 2 && roots[0] > roots[1]) {
+			double tmp = roots[0];
+			roots[0] = roots[1];
+			roots[1] = tmp;
+		}
+		for (int i = 0; i < rootCount; i++) {
+			double t = roots[i];
+			if (t > splits[count - 1] && t < 1)
+				splits[count++] = t;
+		}
+		splits[count++] = 1;
+		for (int i = 0; i < count; i++) {
+			double t = splits[i];
+			values[i] = ((a * t + b) * t + c) * t + d;
+		}
+		for (int i = 0; i < count; i++) {
+			double value = values[i];
+			// Each part along which the distance changes its sign crosses
+			// the line once.
+			if (i > 0 && values[i - 1] * value < 0)
+				addCurveLineLocation(v1, curve, line, flip,
+						findRoot(a, b, c, d, splits[i - 1], splits[i],
+								values[i - 1]));
+			// Extrema and end points within the tolerance of the line
+			// without a crossing next to them touch it.
+			if (Math.abs(value) < tolerance
+					&& (i == 0 || values[i - 1] * value >= 0)
+					&& (i == count - 1 || value * values[i + 1] >= 0))
+				addCurveLineLocation(v1, curve, line, flip, splits[i]);
+		}
+	}
+
+	private void addCurveLineLocation(double[] v1, double[] curve,
+			double[] line, boolean flip, double t) {
+		getPoint(curve, t, point);
+		// Project the point onto the line, as touching points may lie up to
+		// the tolerance away from it.
+		double px = line[0], py = line[1];
+		double vx = line[6] - px, vy = line[7] - py;
+		double length = vx * vx + vy * vy;
+		double x = point[0], y = point[1];
+		if (length > 0) {
+			double s = ((x - px) * vx + (y - py) * vy) / length;
+			x = px + s * vx;
+			y = py + s * vy;
+		}
+		double u = getParameter(line, x, y);
+		if (u != -1) {
+			if (flip)
+				addLocation(v1, u, t);
+			else
+				addLocation(v1, t, u);
+		}
+	}
+
+	/**
+	 * Finds the root of the cubic a * t^3 + b * t^2 + c * t + d between min
+	 * and max, along which it needs to be monotonic and change its sign,
+	 * through Newton's method, falling back to bisection whenever a step
+	 * leaves the range.
+	 *
+	 * @param value the value of the cubic at min
+	 */
+	private static double findRoot(double a, double b, double c, double d,
+			double min, double max, double value) {
+		boolean negative = value < 0;
+		double t = (min + max) * 0.5;
+		for (int i = 0; i < 64; i++) {
+			double f = ((a * t + b) * t + c) * t + d;
+			if (f == 0)
+				break;
+			if (f < 0 == negative)
+				min = t;
+			else
+				max = t;
+			double df = (3 * a * t + 2 * b) * t + c;
+			double next = df != 0 ? t - f / df : min;
+			if (!(next > min && next < max))
+				next = (min + max) * 0.5;
+			boolean done = Math.abs(next - t) < PARAMETER_EPSILON;
+			t = next;
+			if (done)
+				break;
+		}
+		return t;
+	}
+
+	/**
+	 * Determines whether the two curves overlap, in which case the parameters
+	 * of the ends of the overlapping part are stored in {@link #overlaps} as
+	 * pairs of parameters on curve 1 and curve 2.
+	 *
+	 * @return the amount of pairs found, only 2 means that there is an overlap
+	 */
+	private int getOverlaps(double[] v1, double[] v2) {
+		boolean straight1 = isStraight(v1), straight2 = isStraight(v2);
+		boolean straightBoth = straight1 && straight2;
+		// Test the end points of the curve with the shorter chord against the
+		// line of the other one.
+		boolean flip = getChordLengthSquared(v1) < getChordLengthSquared(v2);
+		double[] l1 = flip ? v2 : v1, l2 = flip ? v1 : v2;
+		double px = l1[0], py = l1[1], qx = l1[6], qy = l1[7];
+		if (Math.abs(getSignedDistance(px, py, qx, qy, l2[0], l2[1]))
+				< tolerance
+				&& Math.abs(getSignedDistance(px, py, qx, qy, l2[6], l2[7]))
+				< tolerance) {
+			// All points on one line: Curves that only run along that line
+			// can be treated as straight.
+			if (!straightBoth
+					&& isOnLine(l1, px, py, qx, qy)
+					&& isOnLine(l2, px, py, qx, qy))
+				straight1 = straight2 = straightBoth = true;
+		} else if (straightBoth) {
+			return 0;
+		}
+		// A straight and a curved curve cannot overlap.
+		if (straight1 ^ straight2)
+			return 0;
+		// Find the end points of each curve that lie on the other curve.
+		int count = 0;
+		for (int i = 0; i < 4 && count < 2; i++) {
+			int i1 = i & 1, t1 = i >> 1;
+			double[] v = i1 == 1 ? v2 : v1, other = i1 == 1 ? v1 : v2;
+			int j = t1 == 1 ? 6 : 0;
+			// Only points within the fat line of the curve can lie on it, which
+			// is much cheaper to check than solving for the parameter.
+			double t2 = isInFatLine(v, other[j], other[j + 1])
+					? getParameter(v, other[j], other[j + 1]) : -1;
+			if (t2 != -1) {
+				double first = i1 == 1 ? t1 : t2;
+				double second = i1 == 1 ? t2 : t1;
+				if (count == 0
+						|| Math.abs(first - overlaps[0]) > 10e-9
+						&& Math.abs(second - overlaps[1]) > 10e-9) {
+					overlaps[count * 2] = first;
+					overlaps[count * 2 + 1] = second;
+					count++;
+				}
+			}
+			if (i > 2 && count == 0)
+				break;
+		}
+		if (count == 2 && !straightBoth) {
+			// Compare the overlapping parts of the curves, they need to be
+			// identical. getPart() needs ascending parameters, so compare
+			// the handles crosswise if the curves run in opposite
+			// directions.
+			double[] o1 = getBuffer(0), o2 = getBuffer(1);
+			boolean reverse1 = overlaps[0] > overlaps[2];
+			boolean reverse2 = overlaps[1] > overlaps[3];
+			getPart(v1, overlaps[reverse1 ? 2 : 0], overlaps[reverse1 ? 0 : 2],
+					o1);
+			getPart(v2, overlaps[reverse2 ? 3 : 1], overlaps[reverse2 ? 1 : 3],
+					o2);
+			boolean reverse = reverse1 ^ reverse2;
+			for (int i = 2; i < 6; i++) {
+				int j = reverse ? (i < 4 ? i + 2 : i - 2) : i;
+				if (!(Math.abs(o1[i] - o2[j]) <= tolerance))
+					return 0;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the location of the closest points on v1 and v2 that are found
+	 * by projecting from one to the other, if they lie within the tolerance.
+	 * The parameter ranges describe where v1 and v2 lie on the two curves.
+	 */
+	private void addNearestLocation(double[] v1, double[] v2, boolean flip,
+			double tMin, double tMax, double uMin, double uMax) {
+		// Project back and forth, starting in the middle of v1. As the parts
+		// run almost parallel, this mostly moves the points into the range
+		// covered by both of them.
+		double t = 0.5, s = 0.5, x = 0, y = 0;
+		for (int i = 0; i < 2; i++) {
+			getPoint(v1, t, point);
+			s = getNearestParameter(v2, point[0], point[1]);
+			getPoint(v2, s, point);
+			x = point[0];
+			y = point[1];
+			t = getNearestParameter(v1, x, y);
+		}
+		getPoint(v1, t, point);
+		if (Math.abs(point[0] - x) < tolerance
+				&& Math.abs(point[1] - y) < tolerance) {
+			t = tMin + (tMax - tMin) * t;
+			double u = uMin + (uMax - uMin) * s;
+			// Neighbouring parts along the same touching stretch each end up
+			// here, merge the locations found within their extent.
+			double distance = Math.max(tolerance,
+					getExtent(v1) + getExtent(v2));
+			if (flip)
+				addLocation(values1, u, t, distance);
+			else
+				addLocation(values1, t, u, distance);
+		}
+	}
+
+	/**
+	 * Adds a location on the first curve, unless an intersection was already
+	 * found there.
+	 */
+	private void addLocation(double[] v1, double t, double u) {
+		addLocation(v1, t, u, tolerance);
+	}
+
+	/**
+	 * Adds a location on the first curve, unless an intersection was already
+	 * found within the given distance.
+	 */
+	private void addLocation(double[] v1, double t, double u,
+			double distance) {
+		if (t < 0 || t > 1 || u < 0 || u > 1)
+			return;
+		getPoint(v1, t, point);
+		double x = point[0], y = point[1];
+		for (int i = 0; i < foundCount; i += 2) {
+			if (Math.abs(found[i] - x) < distance
+					&& Math.abs(found[i + 1] - y) < distance)
+				return;
+		}
+		if (foundCount == found.length) {
+			double[] tmp = new double[found.length * 2];
+			System.arraycopy(found, 0, tmp, 0, foundCount);
+			found = tmp;
+		}
+		found[foundCount++] = x;
+		found[foundCount++] = y;
+		if (locations != null) {
+			locations.add(new CurveLocation(curve, t, new Point(x, y)));
+		} else {
+			if (parameterCount == parameters.length) {
+				double[] tmp = new double[parameters.length * 2];
+				System.arraycopy(parameters, 0, tmp, 0, parameterCount);
+				parameters = tmp;
+			}
+			parameters[parameterCount++] = t;
+			parameters[parameterCount++] = u;
+		}
+	}
+
+	/*
+	 * Helpers, all working on the flat curve value arrays.
+	 */
+
+	private static double[] getValues(double[][] curve, double[] values) {
+		for (int i = 0; i < 4; i++) {
+			values[i * 2] = curve[i][0];
+			values[i * 2 + 1] = curve[i][1];
+		}
+		return values;
+	}
+
+	private boolean boundsOverlap(double[] v1, double[] v2) {
+		return getMin(v1, 0) - tolerance <= getMax(v2, 0)
+				&& getMin(v2, 0) - tolerance <= getMax(v1, 0)
+				&& getMin(v1, 1) - tolerance <= getMax(v2, 1)
+				&& getMin(v2, 1) - tolerance <= getMax(v1, 1);
+	}
+
+	private static double getMin(double[] v, int coord) {
+		return Math.min(Math.min(v[coord], v[coord + 2]),
+				Math.min(v[coord + 4], v[coord + 6]));
+	}
+
+	private static double getMax(double[] v, int coord) {
+		return Math.max(Math.max(v[coord], v[coord + 2]),
+				Math.max(v[coord + 4], v[coord + 6]));
+	}
+
+	/**
+	 * Returns the larger side of the control bounds.
+	 */
+	private static double getExtent(double[] v) {
+		return Math.max(getMax(v, 0) - getMin(v, 0),
+				getMax(v, 1) - getMin(v, 1));
+	}
+
+	private static double getChordLengthSquared(double[] v) {
+		double dx = v[6] - v[0], dy = v[7] - v[1];
+		return dx * dx + dy * dy;
+	}
+
+	private boolean isStraight(double[] v) {
+		return isOnLine(v, v[0], v[1], v[6], v[7]);
+	}
+
+	/**
+	 * Checks whether the handles of the curve lie on the given line, within
+	 * the tolerance.
+	 */
+	private boolean isOnLine(double[] v, double px, double py, double qx,
+			double qy) {
+		if (v[2] == v[0] && v[3] == v[1] && v[4] == v[6] && v[5] == v[7])
+			return true;
+		return Math.abs(getSignedDistance(px, py, qx, qy, v[2], v[3]))
+				< tolerance
+				&& Math.abs(getSignedDistance(px, py, qx, qy, v[4], v[5]))
+				< tolerance;
+	}
+
+	/**
+	 * Checks whether the point lies within the fat line of the curve,
+	 * expanded by the tolerance.
+	 */
+	private boolean isInFatLine(double[] v, double x, double y) {
+		double px = v[0], py = v[1], qx = v[6], qy = v[7];
+		double d1 = getSignedDistance(px, py, qx, qy, v[2], v[3]);
+		double d2 = getSignedDistance(px, py, qx, qy, v[4], v[5]);
+		double d = getSignedDistance(px, py, qx, qy, x, y);
+		return d >= Math.min(0, Math.min(d1, d2)) - tolerance
+				&& d <= Math.max(0, Math.max(d1, d2)) + tolerance;
+	}
+
+	/**
+	 * The signed distance of point x, y to the line through p and q.
+	 */
+	private static double getSignedDistance(double px, double py, double qx,
+			double qy, double x, double y) {
+		double vx = qx - px, vy = qy - py;
+		if (vx == 0)
+			return vy > 0 ? x - px : px - x;
+		if (vy == 0)
+			return vx < 0 ? y - py : py - y;
+		return ((x - px) * vy - (y - py) * vx) / Math.sqrt(vx * vx + vy * vy);
+	}
+
+	/**
+	 * Calculates the upper and lower chains of the convex hull of the
+	 * distance function's control points (0, dq0), (1/3, dq1), (2/3, dq2),
+	 * (1, dq3), into hullTop and hullBottom.
+	 */
+	private void getConvexHull(double dq0, double dq1, double dq2,
+			double dq3) {
+		hullY[0] = dq0;
+		hullY[1] = dq1;
+		hullY[2] = dq2;
+		hullY[3] = dq3;
+		double dist1 = dq1 - (2 * dq0 + dq3) / 3;
+		double dist2 = dq2 - (dq0 + 2 * dq3) / 3;
+		int[] top = hullTop, bottom = hullBottom;
+		// If the sign of the first non-zero distance is negative, the chains
+		// swap.
+		if ((dist1 != 0 ? dist1 : dist2) < 0) {
+			top = hullBottom;
+			bottom = hullTop;
+		}
+		int topLength, bottomLength;
+		if (dist1 * dist2 < 0) {
+			// p1 and p2 lie on different sides of the line p0-p3
+			top[0] = 0; top[1] = 1; top[2] = 3;
+			bottom[0] = 0; bottom[1] = 2; bottom[2] = 3;
+			topLength = bottomLength = 3;
+		} else {
+			// p1 and p2 lie on the same side, decide whether one of them
+			// lies inside the hull.
+			double distRatio = dist1 / dist2;
+			if (distRatio >= 2) {
+				top[0] = 0; top[1] = 1; top[2] = 3;
+				topLength = 3;
+			} else if (distRatio <= 0.5) {
+				top[0] = 0; top[1] = 2; top[2] = 3;
+				topLength = 3;
+			} else {
+				top[0] = 0; top[1] = 1; top[2] = 2; top[3] = 3;
+				topLength = 4;
+			}
+			bottom[0] = 0; bottom[1] = 3;
+			bottomLength = 2;
+		}
+		if (top == hullTop) {
+			hullTopLength = topLength;
+			hullBottomLength = bottomLength;
+		} else {
+			hullTopLength = bottomLength;
+			hullBottomLength = topLength;
+		}
+	}
+
+	/**
+	 * Clips the convex hull against the fat line from the left, or from the
+	 * right if reverse is true.
+	 *
+	 * @return the parameter of the clip, or NaN if the hull lies completely
+	 *         outside the fat line.
+	 */
+	private double clipConvexHull(boolean reverse, double dMin, double dMax) {
+		int first = hullTop[reverse ? hullTopLength - 1 : 0];
+		if (hullY[first] < dMin)
+			return clipConvexHullPart(hullTop, hullTopLength, reverse, true,
+					dMin);
+		first = hullBottom[reverse ? hullBottomLength - 1 : 0];
+		if (hullY[first] > dMax)
+			return clipConvexHullPart(hullBottom, hullBottomLength, reverse,
+					false, dMax);
+		return HULL_X[first];
+	}
+
+	private double clipConvexHullPart(int[] part, int length, boolean reverse,
+			boolean top, double threshold) {
+		int first = part[reverse ? length - 1 : 0];
+		double px = HULL_X[first], py = hullY[first];
+		for (int i = 1; i < length; i++) {
+			int index = part[reverse ? length - 1 - i : i];
+			double qx = HULL_X[index], qy = hullY[index];
+			if (top ? qy >= threshold : qy <= threshold) {
+				return qy == threshold ? qx
+						: px + (threshold - py) * (qx - px) / (qy - py);
+			}
+			px = qx;
+			py = qy;
+		}
+		return Double.NaN;
+	}
+
+	protected static void getPoint(double[] v, double t, double[] out) {
+		double u = 1 - t;
+		double a = u * u * u, b = 3 * u * u * t, c = 3 * u * t * t,
+				d = t * t * t;
+		out[0] = a * v[0] + b * v[2] + c * v[4] + d * v[6];
+		out[1] = a * v[1] + b * v[3] + c * v[5] + d * v[7];
+	}
+
+	/**
+	 * Writes the derivative of the curve read from v at the offset at t to
+	 * out, which is proportional to its tangent.
+	 */
+	protected static void getDerivative(double[] v, int offset, double t,
+			double[] out) {
+		double u = 1 - t;
+		double a = u * u, b = 2 * u * t, c = t * t;
+		for (int i = 0; i < 2; i++) {
+			int j = offset + i;
+			out[i] = a * (v[j + 2] - v[j]) + b * (v[j + 4] - v[j + 2])
+					+ c * (v[j + 6] - v[j + 4]);
+		}
+	}
+
+	/**
+	 * Finds the two parameters at which the curve read from v at the offset
+	 * crosses itself, if it forms a loop, and writes them to out in
+	 * ascending order.
+	 *
+	 * @return true if the curve crosses itself between its ends
+	 */
+	protected static boolean getLoopParameters(double[] v, int offset,
+			double[] out) {
+		// Write the curve as a t^3 + b t^2 + c t + p0. Two different
+		// parameters s, t lead to the same point if
+		// a (s^2 + s t + t^2) + b (s + t) + c = 0 in both coordinates.
+		// Eliminating s t from the two gives s + t, and then s t.
+		double x0 = v[offset], y0 = v[offset + 1];
+		double x1 = v[offset + 2], y1 = v[offset + 3];
+		double x2 = v[offset + 4], y2 = v[offset + 5];
+		double x3 = v[offset + 6], y3 = v[offset + 7];
+		double ax = x3 - x0 + 3 * (x1 - x2), ay = y3 - y0 + 3 * (y1 - y2);
+		double bx = 3 * (x0 - 2 * x1 + x2), by = 3 * (y0 - 2 * y1 + y2);
+		double cx = 3 * (x1 - x0), cy = 3 * (y1 - y0);
+		double det = ay * bx - ax * by;
+		// Curves without a cubic part or with parallel a and b cannot loop
+		if (det == 0)
+			return false;
+		double sum = (ax * cy - ay * cx) / det;
+		double product = Math.abs(ax) > Math.abs(ay)
+				? sum * sum + (bx * sum + cx) / ax
+				: sum * sum + (by * sum + cy) / ay;
+		double discriminant = sum * sum - 4 * product;
+		if (!(discriminant > 0))
+			return false;
+		double root = Math.sqrt(discriminant);
+		double t1 = (sum - root) * 0.5, t2 = (sum + root) * 0.5;
+		if (!(t1 > 0 && t2 < 1))
+			return false;
+		out[0] = t1;
+		out[1] = t2;
+		return true;
+	}
+
+	/**
+	 * Determines the parameter of the given point on the curve, or -1 if it
+	 * does not lie on it.
+	 */
+	private double getParameter(double[] v, double x, double y) {
+		double[][] curve = curveValues;
+		for (int i = 0; i < 4; i++) {
+			curve[i][0] = v[i * 2];
+			curve[i][1] = v[i * 2 + 1];
+		}
+		double t = Curve.getParameter(curve, x, y, Curve.EPSILON);
+		if (t == -1)
+			return -1;
+		// Verify the match geometrically, within the tolerance.
+		getPoint(v, t, point);
+		return Math.abs(point[0] - x) < tolerance
+				&& Math.abs(point[1] - y) < tolerance ? t : -1;
+	}
+
+	/**
+	 * Determines the parameter of the point on the curve closest to the
+	 * given point through Newton's method, starting from its projection onto
+	 * the chord. This is only meant for short curves, which have no other
+	 * local minima in their distance to the point.
+	 */
+	private double getNearestParameter(double[] v, double x, double y) {
+		double vx = v[6] - v[0], vy = v[7] - v[1];
+		double length = vx * vx + vy * vy;
+		double t = length > 0
+				? Math.max(0, Math.min(1,
+						((x - v[0]) * vx + (y - v[1]) * vy) / length))
+				: 0.5;
+		double[] tangent = this.tangent;
+		for (int i = 0; i < 8; i++) {
+			getPoint(v, t, point);
+			getDerivative(v, 0, t, tangent);
+			double dx = point[0] - x, dy = point[1] - y;
+			double tx = tangent[0], ty = tangent[1];
+			// getDerivative() returns a third of the curve's derivative,
+			// this is the derivative of that.
+			double u = 1 - t;
+			double sx = 2 * (u * (v[4] - 2 * v[2] + v[0])
+					+ t * (v[6] - 2 * v[4] + v[2]));
+			double sy = 2 * (u * (v[5] - 2 * v[3] + v[1])
+					+ t * (v[7] - 2 * v[5] + v[3]));
+			double f = dx * tx + dy * ty;
+			double df = 3 * (tx * tx + ty * ty) + dx * sx + dy * sy;
+			if (df == 0)
+				break;
+			double next = Math.max(0, Math.min(1, t - f / df));
+			boolean done = Math.abs(next - t) < PARAMETER_EPSILON;
+			t = next;
+			if (done)
+				break;
+		}
+		return t;
+	}
+
+	/**
+	 * Writes the part of the curve between the parameters from and to into
+	 * part, through two de Casteljau subdivisions.
+	 */
+	protected static void getPart(double[] v, double from, double to,
+			double[] part) {
+		if (part != v)
+			System.arraycopy(v, 0, part, 0, 8);
+		if (to < 1)
+			subdivide(part, to, part, null);
+		if (from > 0)
+			subdivide(part, from / to, null, part);
+	}
+
+	/**
+	 * Subdivides the curve at t, writing the parts to left and right, which
+	 * may be null, or identical with v.
+	 */
+	private static void subdivide(double[] v, double t, double[] left,
+			double[] right) {
+		double p1x = v[0], p1y = v[1], c1x = v[2], c1y = v[3],
+				c2x = v[4], c2y = v[5], p2x = v[6], p2y = v[7];
+		double u = 1 - t;
+		// Triangle computation
+		double p3x = u * p1x + t * c1x, p3y = u * p1y + t * c1y,
+				p4x = u * c1x + t * c2x, p4y = u * c1y + t * c2y,
+				p5x = u * c2x + t * p2x, p5y = u * c2y + t * p2y,
+				p6x = u * p3x + t * p4x, p6y = u * p3y + t * p4y,
+				p7x = u * p4x + t * p5x, p7y = u * p4y + t * p5y,
+				p8x = u * p6x + t * p7x, p8y = u * p6y + t * p7y;
+		if (left != null) {
+			left[0] = p1x; left[1] = p1y;
+			left[2] = p3x; left[3] = p3y;
+			left[4] = p6x; left[5] = p6y;
+			left[6] = p8x; left[7] = p8y;
+		}
+		if (right != null) {
+			right[0] = p8x; right[1] = p8y;
+			right[2] = p7x; right[3] = p7y;
+			right[4] = p5x; right[5] = p5y;
+			right[6] = p2x; right[7] = p2y;
+		}
+	}
+
+	private static void subdivide(double[] v, double[] left, double[] right) {
+		subdivide(v, 0.5, left, right);
+	}
+}
@@ -1229,39 +1229,30 @@ public class Document extends NativeObject implements ChangeReceiver {
 	 * CompoundPath or simple Path is sufficient.
 	 */
 	protected PathItem createPathItem(PathIterator iter) {
-		float[] f = new float[6];
+		// Collect all segments first, so each contour can be inserted
+		// through one native call.
+		PathBuilder builder = new PathBuilder(this);
+		builder.append(iter);
+		return builder.createPathItem();
+	}
+
+	/**
+	 * Creates a PathItem from closed contours, each given as an array of
+	 * segments. Determines weather a CompoundPath or simple Path is
+	 * sufficient.
+	 */
+	protected PathItem createPathItem(Segment[][] contours) {
+		if (contours.length == 0)
+			return null;
+		CompoundPath compound = contours.length > 1
+				? createCompoundPath() : null;
 		Path path = null;
-		CompoundPath compound = null;
-		while (!iter.isDone()) {
-			switch (iter.currentSegment(f)) {
-				case PathIterator.SEG_MOVETO: {
-					// See if we used a simple Path so far, and turn it into
-					// a compound path once there is more than one MOVETO
-					// command.
-					if (path != null && compound == null) {
-						compound = createCompoundPath();
-						compound.appendTop(path);
-					}
-					path = createPath();
-					if (compound != null)
-						compound.appendTop(path);
-					path.moveTo(f[0], f[1]);
-					break;
-				}
-				case PathIterator.SEG_LINETO:
-					path.lineTo(f[0], f[1]);
-					break;
-				case PathIterator.SEG_QUADTO:
-					path.quadraticCurveTo(f[0], f[1], f[2], f[3]);
-					break;
-				case PathIterator.SEG_CUBICTO:
-					path.cubicCurveTo(f[0], f[1], f[2], f[3], f[4], f[5]);
-					break;
-				case PathIterator.SEG_CLOSE:
-					path.closePath();
-					break;
-			}
-			iter.next();
+		for (int i = 0; i < contours.length; i++) {
+			path = createPath();
+			path.setSegments(contours[i]);
+			path.setClosed(true);
+			if (compound != null)
+				compound.appendTop(path);
 		}
 		return compound != null ? compound : path;
 	}
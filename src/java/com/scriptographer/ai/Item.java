@@ -1234,6 +1234,14 @@ public class Item extends DocumentObject implements Style, ChangeReceiver {
 	 */
 	public native Rectangle getControlBounds();
 
+	/**
+	 * Checks whether brushes or effects extend the bounds of the item beyond
+	 * its stroke.
+	 * 
+	 * @jshide
+	 */
+	public native boolean hasExtendedBounds();
+
 	/*
 	 * Stroke Styles
 	 */
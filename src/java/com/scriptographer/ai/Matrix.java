@@ -246,6 +246,51 @@ public class Matrix {
 	public Point transform(Point point) {
 		return transform(point.x, point.y);
 	}
+
+	/**
+	 * Stores the transformed point in out, without creating any objects.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point transform(Point point, Point out) {
+		double x = point.x, y = point.y;
+		out.set(x * transform.getScaleX() + y * transform.getShearX()
+				+ transform.getTranslateX(),
+				x * transform.getShearY() + y * transform.getScaleY()
+				+ transform.getTranslateY());
+		return out;
+	}
+
+	/**
+	 * Transforms an array of points stored as pairs of x and y values,
+	 * without creating any objects. The source and destination arrays may be
+	 * the same, also with overlapping ranges.
+	 * 
+	 * @param src the coordinates of the points to transform
+	 * @param srcOff the index of the first value to be transformed
+	 * @param dst the array to receive the transformed coordinates
+	 * @param dstOff the index at which to store the first transformed value
+	 * @param count the amount of points to transform
+	 * @jshide
+	 */
+	public void transform(double[] src, int srcOff, double[] dst, int dstOff,
+			int count) {
+		transform.transform(src, srcOff, dst, dstOff, count);
+	}
+
+	/**
+	 * Transforms an array of vectors stored as pairs of x and y values
+	 * without applying the translation, as needed for relative positions
+	 * such as the handles of segments.
+	 * 
+	 * @see #transform(double[], int, double[], int, int)
+	 * @jshide
+	 */
+	public void deltaTransform(double[] src, int srcOff, double[] dst,
+			int dstOff, int count) {
+		transform.deltaTransform(src, srcOff, dst, dstOff, count);
+	}
 	
 	/**
 	 * {@grouptitle Matrix Concatenation}
@@ -44,6 +44,13 @@ public class Path extends PathItem {
 	private SegmentList segments = null;
 	private CurveList curves = null;
 
+	// The cumulative arc lengths of the curves, with one more entry than
+	// there are curves: offsets[i] is the offset at which curve i starts, and
+	// the last entry is the total length. Validated against
+	// SegmentList#geometryVersion.
+	private double[] curveOffsets = null;
+	private int curveOffsetsVersion;
+
 	/**
 	 * Wraps an AIArtHandle in a Path object
 	 */
@@ -263,6 +270,8 @@ public class Path extends PathItem {
 	public void setClosed(boolean closed) {
 		// Amount of curves may change when closed is modified
 		nativeSetClosed(closed);
+		if (segments != null)
+			segments.geometryVersion++;
 		if (curves != null)
 			curves.updateSize();
 	}
@@ -277,7 +286,10 @@ public class Path extends PathItem {
 	/**
 	 * The length of the perimeter of the path.
 	 */
-	public native double getLength();
+	public double getLength() {
+		double[] offsets = getCurveOffsets();
+		return offsets[offsets.length - 1];
+	}
 
 	/**
 	 * The area of the path in square points. Self-intersecting paths can
@@ -408,10 +420,8 @@ public class Path extends PathItem {
 			double length, partLength;
 			if (hasTabletData) {
 				length = getLength();
-				// Add up length of the new path by getting the curves lengths
-				partLength = 0;
-				for (int i = 0; i < index; i++)
-					partLength += curves.get(i).getLength();
+				// Look up the length of the new path in the curve offsets
+				partLength = getCurveOffsets()[index];
 			} else {
 				length = partLength = 0;
 			}
@@ -516,6 +526,22 @@ public class Path extends PathItem {
 		getSegments().smooth(isClosed());
 	}
 
+	/**
+	 * Smoothes only the end of the path, after the given amount of segments
+	 * were appended to it since it was last smoothed, e.g. in a drawing tool
+	 * after each new point. The result is the same as that of
+	 * {@link #smooth()}, but the time it takes does not grow with the length
+	 * of the path. Closed paths are smoothed completely.
+	 * 
+	 * @param count the amount of segments appended since the last smoothing
+	 */
+	public void smoothEnd(int count) {
+		if (isClosed())
+			smooth();
+		else
+			getSegments().smoothEnd(count);
+	}
+
 	public CurveLocation getLocation(Point point, double precision) {
 		CurveList curves = getCurves();
 		int length = curves.size();
@@ -533,26 +559,58 @@ public class Path extends PathItem {
 		return getLocation(point, Curve.EPSILON);
 	}
 
+	/**
+	 * Returns the cumulative arc length table of the curves, rebuilding it if
+	 * the path was modified since it was last built.
+	 */
+	protected double[] getCurveOffsets() {
+		SegmentList segments = getSegments();
+		if (curveOffsets == null
+				|| curveOffsetsVersion != segments.geometryVersion) {
+			CurveList curves = getCurves();
+			int count = curves.size();
+			// Fetch all segments in one go rather than in small blocks
+			if (count > 0)
+				curves.fetch(0, count);
+			double[] offsets = new double[count + 1];
+			for (int i = 0; i < count; i++)
+				offsets[i + 1] = offsets[i] + curves.get(i).getLength();
+			curveOffsets = offsets;
+			curveOffsetsVersion = segments.geometryVersion;
+		}
+		return curveOffsets;
+	}
+
+	/**
+	 * Returns the index of the curve within which the given offset lies,
+	 * through binary search in the curve offsets table, or -1 if the offset
+	 * lies beyond the end of the path.
+	 */
+	protected static int getCurveIndex(double[] offsets, double offset) {
+		int count = offsets.length - 1;
+		if (count == 0 || offset > offsets[count])
+			return -1;
+		// Find the first curve that ends at or after offset
+		int low = 0, high = count - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (offsets[mid + 1] < offset)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
 	// TODO: move to CurveList, to make accessible when not using
 	// paths directly too?
 	public CurveLocation getLocation(double offset) {
-		CurveList curves = getCurves();
-		double currentLength = 0;
-		for (int i = 0, l = curves.size(); i < l; i++) {
-			double startLength = currentLength;
-			Curve curve = curves.get(i);
-			currentLength += curve.getLength();
-			if (currentLength >= offset) {
-				// found the segment within which the length lies
-				double t = curve.getParameter(offset - startLength);
-				return new CurveLocation(curve, t);
-			}
-		}
-		// it may be that through impreciseness of getLength, that the end of
-		// the curves was missed:
-		if (curves.size() > 0 && offset <= getLength()) {
-			Curve curve = curves.getLast();
-			return new CurveLocation(curve, 1);
+		double[] offsets = getCurveOffsets();
+		int index = getCurveIndex(offsets, offset);
+		if (index != -1) {
+			Curve curve = getCurves().get(index);
+			double t = curve.getParameter(offset - offsets[index]);
+			return new CurveLocation(curve, t);
 		}
 		return null;
 	}
@@ -567,11 +625,8 @@ public class Path extends PathItem {
 	protected Double getOffset(CurveLocation location) {
 		Integer index = location.getIndex();
 		if (index != null) {
-			double offset = 0;
-			CurveList curves = getCurves();
-			for (int i = 0; i < index; i++)
-				offset += curves.get(i).getLength();
-			Curve curve = curves.get(index);
+			double offset = getCurveOffsets()[index];
+			Curve curve = getCurves().get(index);
 			return offset + curve.getLength(0, location.getParameter());
 		}
 		return null;
@@ -817,4 +872,10 @@ public class Path extends PathItem {
 	protected List<Curve> getAllCurves() {
 		return getCurves();
 	}
+
+	protected List<Path> getAllPaths() {
+		ExtendedArrayList<Path> paths = new ExtendedArrayList<Path>();
+		paths.add(this);
+		return paths;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,882 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.scratchdisk.list.List;
+
+/**
+ * Performs boolean operations on the Bezier curves of two path items in double
+ * precision, without flattening them:
+ *
+ * All curves of both items are split at their intersections with each other,
+ * including the ones within the same item. The resulting edges are then
+ * classified by the winding numbers of both items on their left and right
+ * side, and only the edges that separate the inside of the result from its
+ * outside are kept. These are finally linked to closed contours, oriented so
+ * that the inside of the result always lies on their left side.
+ *
+ * Edges between two intersections always separate the same two regions, so
+ * only one edge per such run needs to be classified.
+ *
+ * Curve values are stored in flat arrays of eight values, as in
+ * {@link CurveIntersector}.
+ *
+ * @author agent
+ */
+class PathBoolean {
+
+	protected enum Operation {
+		INTERSECT,
+		UNITE,
+		EXCLUDE
+	}
+
+	// Parameters closer than this to the end of a curve are considered to be
+	// on its end point.
+	private static final double PARAMETER_EPSILON = 1e-9;
+
+	private Operation operation;
+	private double tolerance;
+	// The distance from the edges at which the winding numbers are sampled
+	private double sampleDistance;
+	private boolean evenOdd1;
+	private boolean evenOdd2;
+
+	// The curves of both items, as flat values
+	private double[] values = new double[64];
+	// Which of the two items each curve belongs to
+	private int[] curveItem = new int[8];
+	// Whether the curve is a straight line without handles
+	private boolean[] curveLinear = new boolean[8];
+	// The vertices at the start and end of each curve
+	private int[] curveStart = new int[8];
+	private int[] curveEnd = new int[8];
+	private int curveCount;
+	// The first curve of each contour, with one more entry for the end
+	private int[] contourStart = new int[8];
+	private int contourCount;
+
+	// The vertices, merged through union-find when they coincide
+	private double[] vertexX = new double[64];
+	private double[] vertexY = new double[64];
+	private int[] vertexParent = new int[64];
+	private int vertexCount;
+
+	// The points at which curves are split: the curve, parameter and vertex
+	private int[] splitCurve = new int[64];
+	private double[] splitParameter = new double[64];
+	private int[] splitVertex = new int[64];
+	private int splitCount;
+
+	// The edges: the parts of the curves between their split points
+	private double[] edgeValues = new double[64];
+	private int[] edgeStart = new int[8];
+	private int[] edgeEnd = new int[8];
+	private int[] edgeCurve = new int[8];
+	// The parameter in the middle of the edge on its curve
+	private double[] edgeMiddle = new double[8];
+	private int edgeCount;
+
+	// The curves in horizontal bands, to quickly find the ones that a ray
+	// can cross when determining winding numbers
+	private double bandMin;
+	private double bandScale;
+	private int[] bandStart;
+	private int[] bandCurves;
+
+	private double[] part = new double[8];
+	private double[] point = new double[2];
+	private double[] loop = new double[2];
+	private int[] windings = new int[2];
+
+	protected PathBoolean(Operation operation, double tolerance) {
+		this.operation = operation;
+		this.tolerance = tolerance;
+		sampleDistance = tolerance * 0.1;
+	}
+
+	protected PathBoolean(Operation operation) {
+		this(operation, Curve.EPSILON);
+	}
+
+	/**
+	 * Performs the operation on the two items and returns the contours of
+	 * the result, each as an array of segments of a closed path. The result
+	 * fills the same area with both winding rules.
+	 */
+	protected Segment[][] getContours(PathItem item1, PathItem item2) {
+		addEdges(item1, item2);
+		int[] direction = new int[edgeCount];
+		classifyEdges(direction);
+		return getContours(direction);
+	}
+
+	private void addEdges(PathItem item1, PathItem item2) {
+		evenOdd1 = item1.getWindingRule() == WindingRule.EVEN_ODD;
+		evenOdd2 = item2.getWindingRule() == WindingRule.EVEN_ODD;
+		addCurves(item1, 0);
+		addCurves(item2, 1);
+		addIntersections();
+		mergeVertices();
+		addEdges();
+	}
+
+	/**
+	 * Adds the curves of all paths in the item. Open paths are closed with a
+	 * straight line, as they are when they are filled.
+	 */
+	private void addCurves(PathItem item, int itemIndex) {
+		List<Path> paths = item.getAllPaths();
+		for (int i = 0, l = paths.size(); i < l; i++) {
+			Path path = paths.get(i);
+			SegmentList segments = path.getSegments();
+			int count = segments.size();
+			// Fetch all segments in one go rather than in small blocks
+			if (count > 0)
+				segments.fetch(0, count);
+			addContour(segments, path.isClosed(), itemIndex);
+		}
+	}
+
+	private void addContour(List<Segment> segments, boolean closed,
+			int itemIndex) {
+		int count = segments.size();
+		if (count < 2)
+			return;
+		int first = vertexCount;
+		ensureCurves(curveCount + count);
+		if (contourCount + 2 > contourStart.length)
+			contourStart = grow(contourStart, contourCount + 2);
+		contourStart[contourCount++] = curveCount;
+		Segment segment = segments.get(0);
+		for (int j = 0; j < count; j++) {
+			int next = j + 1 < count ? j + 1 : 0;
+			Segment nextSegment = segments.get(next);
+			SegmentPoint point1 = segment.point;
+			SegmentPoint point2 = nextSegment.point;
+			Point handle1 = segment.handleOut;
+			Point handle2 = nextSegment.handleIn;
+			addVertex(point1.x, point1.y);
+			// The closing curve of open paths is a straight line
+			boolean linear = next == 0 && !closed
+					|| handle1.isZero() && handle2.isZero();
+			int curve = curveCount++;
+			int index = curve * 8;
+			values[index] = point1.x;
+			values[index + 1] = point1.y;
+			values[index + 6] = point2.x;
+			values[index + 7] = point2.y;
+			if (linear) {
+				values[index + 2] = point1.x;
+				values[index + 3] = point1.y;
+				values[index + 4] = point2.x;
+				values[index + 5] = point2.y;
+			} else {
+				values[index + 2] = point1.x + handle1.x;
+				values[index + 3] = point1.y + handle1.y;
+				values[index + 4] = point2.x + handle2.x;
+				values[index + 5] = point2.y + handle2.y;
+			}
+			curveItem[curve] = itemIndex;
+			curveLinear[curve] = linear;
+			curveStart[curve] = first + j;
+			curveEnd[curve] = first + next;
+			segment = nextSegment;
+		}
+		contourStart[contourCount] = curveCount;
+	}
+
+	/**
+	 * Finds the intersections between all curves, and adds the split points
+	 * at which they need to be divided.
+	 */
+	private void addIntersections() {
+		CurveHierarchy hierarchy = new CurveHierarchy(values, curveCount);
+		long[] pairs = hierarchy.getOverlaps(hierarchy, tolerance);
+		CurveIntersector intersector = new CurveIntersector(tolerance);
+		// Curves that form a loop cross themselves, which the pairs below do
+		// not cover. Split them at both parameters of the crossing, which
+		// leaves the loop as an edge that starts and ends in one vertex.
+		for (int curve = 0; curve < curveCount; curve++) {
+			if (!curveLinear[curve] && CurveIntersector.getLoopParameters(
+					values, curve * 8, loop)) {
+				CurveIntersector.getPoint(getValues(curve), loop[0], point);
+				int vertex = addVertex(point[0], point[1]);
+				addSplit(curve, loop[0], vertex);
+				addSplit(curve, loop[1], vertex);
+			}
+		}
+		for (int i = 0; i < pairs.length; i++) {
+			int curve1 = (int) (pairs[i] / curveCount);
+			int curve2 = (int) (pairs[i] % curveCount);
+			// Each pair is found twice, in both orders
+			if (curve1 >= curve2)
+				continue;
+			int count = intersector.getParameters(values, curve1 * 8, values,
+					curve2 * 8);
+			double[] parameters = intersector.parameters;
+			for (int j = 0; j < count; j++) {
+				double t = parameters[j * 2], u = parameters[j * 2 + 1];
+				CurveIntersector.getPoint(getValues(curve1), t, point);
+				double x = point[0], y = point[1];
+				int vertex1 = getEndVertex(curve1, t, x, y);
+				int vertex2 = getEndVertex(curve2, u, x, y);
+				if (vertex1 == -1 && vertex2 == -1) {
+					vertex1 = vertex2 = addVertex(x, y);
+				} else if (vertex1 == -1) {
+					vertex1 = vertex2;
+				} else if (vertex2 == -1) {
+					vertex2 = vertex1;
+				} else {
+					union(vertex1, vertex2);
+				}
+				if (getEndVertex(curve1, t, x, y) == -1)
+					addSplit(curve1, t, vertex1);
+				if (getEndVertex(curve2, u, x, y) == -1)
+					addSplit(curve2, u, vertex2);
+			}
+		}
+	}
+
+	/**
+	 * Returns the vertex at the start or end of the curve if the parameter
+	 * or point lies on it, -1 otherwise.
+	 */
+	private int getEndVertex(int curve, double t, double x, double y) {
+		int offset = curve * 8;
+		if (t < PARAMETER_EPSILON
+				|| Math.abs(values[offset] - x) < tolerance
+				&& Math.abs(values[offset + 1] - y) < tolerance)
+			return curveStart[curve];
+		if (t > 1 - PARAMETER_EPSILON
+				|| Math.abs(values[offset + 6] - x) < tolerance
+				&& Math.abs(values[offset + 7] - y) < tolerance)
+			return curveEnd[curve];
+		return -1;
+	}
+
+	/**
+	 * Merges all vertices that lie within the tolerance of each other, by
+	 * sweeping over them sorted by their x coordinates.
+	 */
+	private void mergeVertices() {
+		int[] order = new int[vertexCount];
+		for (int i = 0; i < vertexCount; i++)
+			order[i] = i;
+		sort(order, vertexX, 0, vertexCount - 1);
+		for (int i = 0; i < vertexCount; i++) {
+			int vertex1 = order[i];
+			double x = vertexX[vertex1], y = vertexY[vertex1];
+			for (int j = i + 1; j < vertexCount; j++) {
+				int vertex2 = order[j];
+				if (vertexX[vertex2] - x >= tolerance)
+					break;
+				if (Math.abs(vertexY[vertex2] - y) < tolerance)
+					union(vertex1, vertex2);
+			}
+		}
+	}
+
+	/**
+	 * Splits all curves at their split points into edges, and removes the
+	 * degenerate ones.
+	 */
+	private void addEdges() {
+		// Sort the split points by curves through counting, and then by
+		// parameters on each curve.
+		int[] start = new int[curveCount + 1];
+		for (int i = 0; i < splitCount; i++)
+			start[splitCurve[i] + 1]++;
+		for (int i = 0; i < curveCount; i++)
+			start[i + 1] += start[i];
+		int[] position = new int[curveCount];
+		int[] sorted = new int[splitCount];
+		for (int i = 0; i < splitCount; i++) {
+			int curve = splitCurve[i];
+			sorted[start[curve] + position[curve]++] = i;
+		}
+		for (int curve = 0; curve < curveCount; curve++) {
+			int from = start[curve], to = start[curve + 1];
+			// There are only few split points per curve, insertion sort them
+			for (int i = from + 1; i < to; i++) {
+				int split = sorted[i];
+				double t = splitParameter[split];
+				int j = i - 1;
+				for (; j >= from && splitParameter[sorted[j]] > t; j--)
+					sorted[j + 1] = sorted[j];
+				sorted[j + 1] = split;
+			}
+			double prevT = 0;
+			int prevVertex = find(curveStart[curve]);
+			for (int i = from; i <= to; i++) {
+				double t;
+				int vertex;
+				if (i < to) {
+					t = splitParameter[sorted[i]];
+					vertex = find(splitVertex[sorted[i]]);
+				} else {
+					t = 1;
+					vertex = find(curveEnd[curve]);
+				}
+				if (addEdge(curve, prevT, t, prevVertex, vertex)) {
+					prevT = t;
+					prevVertex = vertex;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the part of the curve between the two parameters as an edge,
+	 * unless it is degenerate: starts and ends in the same vertex, and is
+	 * smaller than the tolerance.
+	 *
+	 * @return true if the edge was added
+	 */
+	private boolean addEdge(int curve, double from, double to, int start,
+			int end) {
+		if (edgeCount == edgeStart.length) {
+			int length = edgeCount * 2;
+			edgeValues = grow(edgeValues, length * 8);
+			edgeStart = grow(edgeStart, length);
+			edgeEnd = grow(edgeEnd, length);
+			edgeCurve = grow(edgeCurve, length);
+			edgeMiddle = grow(edgeMiddle, length);
+		}
+		int offset = edgeCount * 8;
+		CurveIntersector.getPart(getValues(curve), from, to, part);
+		if (start == end && getExtent(part) < tolerance)
+			return false;
+		// Snap the ends to the vertices, moving the handles along, and keep
+		// straight lines free of handles.
+		double x1 = vertexX[start], y1 = vertexY[start];
+		double x2 = vertexX[end], y2 = vertexY[end];
+		boolean linear = curveLinear[curve];
+		edgeValues[offset] = x1;
+		edgeValues[offset + 1] = y1;
+		edgeValues[offset + 2] = linear ? x1 : part[2] + x1 - part[0];
+		edgeValues[offset + 3] = linear ? y1 : part[3] + y1 - part[1];
+		edgeValues[offset + 4] = linear ? x2 : part[4] + x2 - part[6];
+		edgeValues[offset + 5] = linear ? y2 : part[5] + y2 - part[7];
+		edgeValues[offset + 6] = x2;
+		edgeValues[offset + 7] = y2;
+		edgeStart[edgeCount] = start;
+		edgeEnd[edgeCount] = end;
+		edgeCurve[edgeCount] = curve;
+		edgeMiddle[edgeCount] = (from + to) * 0.5;
+		edgeCount++;
+		return true;
+	}
+
+	/**
+	 * Classifies the edges, storing in direction whether they are part of
+	 * the result: 0 if not, 1 if they are, -1 if they are, reversed.
+	 */
+	private void classifyEdges(int[] direction) {
+		int[] degree = new int[vertexCount];
+		for (int i = 0; i < edgeCount; i++) {
+			degree[edgeStart[i]]++;
+			degree[edgeEnd[i]]++;
+		}
+		boolean[] duplicates = getDuplicateEdges(degree);
+		buildBands();
+		// The edges are in the order of their curves, so the edges of each
+		// contour are in a continuous range.
+		int contour = 0, contourFrom = 0;
+		while (contourFrom < edgeCount) {
+			while (contourStart[contour + 1] <= edgeCurve[contourFrom])
+				contour++;
+			int contourTo = contourFrom;
+			while (contourTo < edgeCount
+					&& edgeCurve[contourTo] < contourStart[contour + 1])
+				contourTo++;
+			classifyContour(contourFrom, contourTo, degree, duplicates,
+					direction);
+			contourFrom = contourTo;
+		}
+	}
+
+	/**
+	 * Links the edges that belong to the result to closed contours.
+	 */
+	private Segment[][] getContours(int[] direction) {
+		// Index the outgoing edges of each vertex, in the direction in which
+		// they are part of the result.
+		int[] outStart = new int[vertexCount + 1];
+		for (int i = 0; i < edgeCount; i++) {
+			if (direction[i] != 0)
+				outStart[getFrom(i, direction[i]) + 1]++;
+		}
+		for (int i = 0; i < vertexCount; i++)
+			outStart[i + 1] += outStart[i];
+		int[] outEdges = new int[outStart[vertexCount]];
+		int[] outCount = new int[vertexCount];
+		for (int i = 0; i < edgeCount; i++) {
+			if (direction[i] != 0) {
+				int vertex = getFrom(i, direction[i]);
+				outEdges[outStart[vertex] + outCount[vertex]++] = i;
+			}
+		}
+		// Walk along unused edges until the start is reached again. Used
+		// edges are marked by doubling their direction.
+		ArrayList<Segment[]> contours = new ArrayList<Segment[]>();
+		int[] path = new int[16];
+		for (int i = 0; i < edgeCount; i++) {
+			if (direction[i] != 1 && direction[i] != -1)
+				continue;
+			int first = getFrom(i, direction[i]);
+			int edge = i, length = 0;
+			while (edge != -1) {
+				if (length == path.length)
+					path = grow(path, length * 2);
+				path[length++] = edge;
+				int vertex = getTo(edge, direction[edge]);
+				direction[edge] *= 2;
+				edge = -1;
+				if (vertex != first) {
+					for (int j = outStart[vertex], l = outStart[vertex + 1];
+							j < l; j++) {
+						int next = outEdges[j];
+						if (direction[next] == 1 || direction[next] == -1) {
+							edge = next;
+							break;
+						}
+					}
+				}
+			}
+			contours.add(getSegments(path, length, direction));
+		}
+		return contours.toArray(new Segment[contours.size()][]);
+	}
+
+	/**
+	 * Finds the edges that coincide with an earlier one. They separate the
+	 * same regions and are left out of the result.
+	 */
+	private boolean[] getDuplicateEdges(int[] degree) {
+		boolean[] duplicates = new boolean[edgeCount];
+		HashMap<Long, Integer> first = new HashMap<Long, Integer>();
+		int[] next = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			int start = edgeStart[i], end = edgeEnd[i];
+			// Only edges between intersections can coincide
+			next[i] = -1;
+			if (degree[start] <= 2 || degree[end] <= 2)
+				continue;
+			long key = (long) Math.min(start, end) * vertexCount
+					+ Math.max(start, end);
+			Integer other = first.get(key);
+			if (other == null) {
+				first.put(key, i);
+				continue;
+			}
+			getPoint(i, 0.5, point);
+			double x = point[0], y = point[1];
+			boolean duplicate = false;
+			for (int j = other.intValue(); j != -1 && !duplicate; j = next[j]) {
+				getPoint(j, 0.5, point);
+				duplicate = Math.abs(point[0] - x) < tolerance
+						&& Math.abs(point[1] - y) < tolerance;
+			}
+			if (duplicate) {
+				// Remove it from the graph entirely
+				degree[start]--;
+				degree[end]--;
+				duplicates[i] = true;
+			} else {
+				next[i] = next[other.intValue()];
+				next[other.intValue()] = i;
+			}
+		}
+		return duplicates;
+	}
+
+	/**
+	 * Classifies the edges of one contour between fromIndex and toIndex.
+	 * Runs of edges between two vertices at which other edges meet separate
+	 * the same regions, so only one edge per run is classified.
+	 */
+	private void classifyContour(int fromIndex, int toIndex, int[] degree,
+			boolean[] duplicates, int[] direction) {
+		int count = toIndex - fromIndex;
+		// Find the first edge that starts at an intersection.
+		int first = 0;
+		while (first < count && degree[edgeStart[fromIndex + first]] <= 2)
+			first++;
+		if (first == count)
+			first = 0;
+		int runStart = 0;
+		for (int i = 1; i <= count; i++) {
+			if (i == count
+					|| degree[edgeStart[fromIndex + (first + i) % count]] > 2) {
+				// Classify the run by its middle edge, skipping duplicates
+				int dir = 0;
+				for (int j = (runStart + i) / 2, k = 0; k < i - runStart;
+						k++, j = j + 1 < i ? j + 1 : runStart) {
+					int edge = fromIndex + (first + j) % count;
+					if (!duplicates[edge]) {
+						dir = classify(edge);
+						break;
+					}
+				}
+				for (int j = runStart; j < i; j++) {
+					int edge = fromIndex + (first + j) % count;
+					direction[edge] = duplicates[edge] ? 0 : dir;
+				}
+				runStart = i;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether the edge separates the inside of the result from
+	 * its outside, by comparing the winding numbers on both of its sides.
+	 *
+	 * @return 0 if it does not, 1 if the inside lies on its left, -1 if it
+	 *         lies on its right
+	 */
+	private int classify(int edge) {
+		// Sample on the original curve rather than the edge, as the edge's
+		// ends are moved to the vertices, which are only approximations.
+		double[] v = getValues(edgeCurve[edge]);
+		double t = edgeMiddle[edge];
+		CurveIntersector.getPoint(v, t, point);
+		double x = point[0], y = point[1];
+		CurveIntersector.getDerivative(v, 0, t, point);
+		double dx = point[0], dy = point[1];
+		if (dx == 0 && dy == 0) {
+			// Handles on the end points, use the chord instead
+			dx = v[6] - v[0];
+			dy = v[7] - v[1];
+		}
+		double length = Math.sqrt(dx * dx + dy * dy);
+		if (length == 0)
+			return 0;
+		double nx = -dy / length * sampleDistance;
+		double ny = dx / length * sampleDistance;
+		boolean left = isInside(x + nx, y + ny);
+		boolean right = isInside(x - nx, y - ny);
+		return left == right ? 0 : left ? 1 : -1;
+	}
+
+	private boolean isInside(double x, double y) {
+		getWindings(x, y);
+		boolean inside1 = evenOdd1 ? (windings[0] & 1) != 0 : windings[0] != 0;
+		boolean inside2 = evenOdd2 ? (windings[1] & 1) != 0 : windings[1] != 0;
+		switch (operation) {
+		case INTERSECT:
+			return inside1 && inside2;
+		case UNITE:
+			return inside1 || inside2;
+		default:
+			return inside1 && !inside2;
+		}
+	}
+
+	/**
+	 * Builds the horizontal bands that the curves are sorted into.
+	 */
+	private void buildBands() {
+		double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+		for (int i = 0; i < curveCount; i++) {
+			int offset = i * 8;
+			min = Math.min(min, getMin(values, offset, 1));
+			max = Math.max(max, getMax(values, offset, 1));
+		}
+		int count = Math.max(1, Math.min(1024,
+				(int) Math.sqrt(curveCount) * 2));
+		bandMin = min;
+		bandScale = max > min ? count / (max - min) : 0;
+		bandStart = new int[count + 1];
+		for (int pass = 0; pass < 2; pass++) {
+			int[] position = pass == 1 ? new int[count] : null;
+			for (int i = 0; i < curveCount; i++) {
+				int offset = i * 8;
+				int from = getBand(getMin(values, offset, 1));
+				int to = getBand(getMax(values, offset, 1));
+				for (int j = from; j <= to; j++) {
+					if (pass == 0)
+						bandStart[j + 1]++;
+					else
+						bandCurves[bandStart[j] + position[j]++] = i;
+				}
+			}
+			if (pass == 0) {
+				for (int i = 0; i < count; i++)
+					bandStart[i + 1] += bandStart[i];
+				bandCurves = new int[bandStart[count]];
+			}
+		}
+	}
+
+	private int getBand(double y) {
+		int count = bandStart.length - 1;
+		return Math.max(0, Math.min(count - 1,
+				(int) ((y - bandMin) * bandScale)));
+	}
+
+	/**
+	 * Determines the winding numbers of both items at the given point, by
+	 * counting the signed crossings of a horizontal ray to the right of it.
+	 */
+	private void getWindings(double x, double y) {
+		windings[0] = windings[1] = 0;
+		int band = getBand(y);
+		for (int i = bandStart[band], l = bandStart[band + 1]; i < l; i++) {
+			int curve = bandCurves[i];
+			windings[curveItem[curve]] += getWinding(values, curve * 8, x, y);
+		}
+	}
+
+	/**
+	 * Returns the sum of the directions in which the curve crosses a
+	 * horizontal ray from the given point to the right: 1 for upwards, -1 for
+	 * downwards crossings. The curve is split into parts that are monotone
+	 * in y, and each part counts if the ray lies within its half-open y
+	 * range, so crossings through the points between two curves are counted
+	 * exactly once.
+	 */
+	protected static int getWinding(double[] v, int offset, double x,
+			double y) {
+		double y0 = v[offset + 1], y1 = v[offset + 3], y2 = v[offset + 5],
+				y3 = v[offset + 7];
+		if (y < y0 && y < y1 && y < y2 && y < y3
+				|| y > y0 && y > y1 && y > y2 && y > y3)
+			return 0;
+		double x0 = v[offset], x1 = v[offset + 2], x2 = v[offset + 4],
+				x3 = v[offset + 6];
+		if (x >= x0 && x >= x1 && x >= x2 && x >= x3)
+			return 0;
+		boolean left = x < x0 && x < x1 && x < x2 && x < x3;
+		// The roots of the derivative split the curve into monotone parts
+		double a = 3 * (y3 - y0 + 3 * (y1 - y2)), b = 6 * (y0 + y2 - 2 * y1),
+				c = 3 * (y1 - y0);
+		double t1 = 2, t2 = 2;
+		if (Math.abs(a) < 10e-12) {
+			if (b != 0)
+				t1 = -c / b;
+		} else {
+			double discriminant = b * b - 4 * a * c;
+			if (discriminant >= 0) {
+				double root = Math.sqrt(discriminant);
+				t1 = (-b - root) / (2 * a);
+				t2 = (-b + root) / (2 * a);
+				if (t1 > t2) {
+					double tmp = t1;
+					t1 = t2;
+					t2 = tmp;
+				}
+			}
+		}
+		int winding = 0;
+		double from = 0, yFrom = y0;
+		for (int i = 0; i < 3; i++) {
+			double to = i == 0 ? t1 : i == 1 ? t2 : 1;
+			if (to <= from || to > 1)
+				continue;
+			double yTo = to == 1 ? y3 : getCoordinate(v, offset + 1, to);
+			if (yFrom <= y && y < yTo || yTo <= y && y < yFrom) {
+				int dir = yTo > yFrom ? 1 : -1;
+				if (left) {
+					winding += dir;
+				} else {
+					// Find the crossing through bisection on the monotone part
+					double low = from, high = to;
+					for (int j = 0; j < 52 && high - low > 10e-14; j++) {
+						double mid = (low + high) * 0.5;
+						double yMid = getCoordinate(v, offset + 1, mid);
+						if (yMid < y == yTo > yFrom)
+							low = mid;
+						else
+							high = mid;
+					}
+					if (getCoordinate(v, offset, (low + high) * 0.5) > x)
+						winding += dir;
+				}
+			}
+			from = to;
+			yFrom = yTo;
+		}
+		return winding;
+	}
+
+	private static double getCoordinate(double[] v, int offset, double t) {
+		double u = 1 - t;
+		return u * u * u * v[offset] + 3 * u * u * t * v[offset + 2]
+				+ 3 * u * t * t * v[offset + 4] + t * t * t * v[offset + 6];
+	}
+
+	/**
+	 * Converts the edges of a contour to closed path segments.
+	 */
+	private Segment[] getSegments(int[] path, int length, int[] direction) {
+		Segment[] segments = new Segment[length];
+		double[] v = edgeValues;
+		for (int i = 0; i < length; i++) {
+			int edge = path[i], prev = path[i > 0 ? i - 1 : length - 1];
+			int offset = edge * 8, prevOffset = prev * 8;
+			boolean reversed = direction[edge] < 0;
+			boolean prevReversed = direction[prev] < 0;
+			int point = offset + (reversed ? 6 : 0);
+			int handleOut = offset + (reversed ? 4 : 2);
+			int handleIn = prevOffset + (prevReversed ? 2 : 4);
+			double x = v[point], y = v[point + 1];
+			segments[i] = new Segment(x, y,
+					v[handleIn] - x, v[handleIn + 1] - y,
+					v[handleOut] - x, v[handleOut + 1] - y);
+		}
+		return segments;
+	}
+
+	private int getFrom(int edge, int direction) {
+		return direction > 0 ? edgeStart[edge] : edgeEnd[edge];
+	}
+
+	private int getTo(int edge, int direction) {
+		return direction > 0 ? edgeEnd[edge] : edgeStart[edge];
+	}
+
+	private void getPoint(int edge, double t, double[] out) {
+		System.arraycopy(edgeValues, edge * 8, part, 0, 8);
+		CurveIntersector.getPoint(part, t, out);
+	}
+
+	private double[] getValues(int curve) {
+		System.arraycopy(values, curve * 8, part, 0, 8);
+		return part;
+	}
+
+	private void addSplit(int curve, double t, int vertex) {
+		if (splitCount == splitCurve.length) {
+			int length = splitCount * 2;
+			splitCurve = grow(splitCurve, length);
+			splitParameter = grow(splitParameter, length);
+			splitVertex = grow(splitVertex, length);
+		}
+		splitCurve[splitCount] = curve;
+		splitParameter[splitCount] = t;
+		splitVertex[splitCount] = vertex;
+		splitCount++;
+	}
+
+	private int addVertex(double x, double y) {
+		if (vertexCount == vertexX.length) {
+			int length = vertexCount * 2;
+			vertexX = grow(vertexX, length);
+			vertexY = grow(vertexY, length);
+			vertexParent = grow(vertexParent, length);
+		}
+		vertexX[vertexCount] = x;
+		vertexY[vertexCount] = y;
+		vertexParent[vertexCount] = vertexCount;
+		return vertexCount++;
+	}
+
+	private int find(int vertex) {
+		while (vertexParent[vertex] != vertex) {
+			vertexParent[vertex] = vertexParent[vertexParent[vertex]];
+			vertex = vertexParent[vertex];
+		}
+		return vertex;
+	}
+
+	private void union(int vertex1, int vertex2) {
+		vertex1 = find(vertex1);
+		vertex2 = find(vertex2);
+		// Keep the lower index as the root, so original points win over
+		// approximated intersections
+		if (vertex1 < vertex2)
+			vertexParent[vertex2] = vertex1;
+		else if (vertex2 < vertex1)
+			vertexParent[vertex1] = vertex2;
+	}
+
+	private void ensureCurves(int count) {
+		if (count > curveItem.length) {
+			int length = Math.max(count, curveItem.length * 2);
+			values = grow(values, length * 8);
+			curveItem = grow(curveItem, length);
+			curveLinear = grow(curveLinear, length);
+			curveStart = grow(curveStart, length);
+			curveEnd = grow(curveEnd, length);
+		}
+	}
+
+	private static double getMin(double[] v, int offset, int coord) {
+		return Math.min(Math.min(v[offset + coord], v[offset + coord + 2]),
+				Math.min(v[offset + coord + 4], v[offset + coord + 6]));
+	}
+
+	private static double getMax(double[] v, int offset, int coord) {
+		return Math.max(Math.max(v[offset + coord], v[offset + coord + 2]),
+				Math.max(v[offset + coord + 4], v[offset + coord + 6]));
+	}
+
+	private static double getExtent(double[] v) {
+		return Math.max(getMax(v, 0, 0) - getMin(v, 0, 0),
+				getMax(v, 0, 1) - getMin(v, 0, 1));
+	}
+
+	/**
+	 * Sorts the indices by the keys they point to, through quicksort.
+	 */
+	private static void sort(int[] indices, double[] keys, int left,
+			int right) {
+		while (left < right) {
+			double pivot = keys[indices[(left + right) >>> 1]];
+			int i = left, j = right;
+			while (i <= j) {
+				while (keys[indices[i]] < pivot)
+					i++;
+				while (keys[indices[j]] > pivot)
+					j--;
+				if (i <= j) {
+					int tmp = indices[i];
+					indices[i++] = indices[j];
+					indices[j--] = tmp;
+				}
+			}
+			// Recurse into the smaller part, loop over the larger one
+			if (j - left < right - i) {
+				sort(indices, keys, left, j);
+				left = i;
+			} else {
+				sort(indices, keys, i, right);
+				right = j;
+			}
+		}
+	}
+
+	private static double[] grow(double[] array, int length) {
+		double[] tmp = new double[length];
+		System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+		return tmp;
+	}
+
+	private static int[] grow(int[] array, int length) {
+		int[] tmp = new int[length];
+		System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+		return tmp;
+	}
+
+	private static boolean[] grow(boolean[] array, int length) {
+		boolean[] tmp = new boolean[length];
+		System.arraycopy(array, 0, tmp, 0, Math.min(array.length, length));
+		return tmp;
+	}
+}
@@ -0,0 +1,460 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import com.scratchdisk.list.List;
+
+/**
+ * The exact bounds of a list of paths, computed in Java from the extrema of
+ * their curves rather than through native calls.
+ *
+ * The bounds of each curve are found by solving its derivative for the
+ * parameters at which it is horizontal or vertical. The stroke bounds extend
+ * these by half the stroke width perpendicular to the curves, and add the
+ * caps at the ends of open paths and the joins between curves, as described
+ * by the {@link StrokeStyle}.
+ *
+ * The segment values are read once when the bounds are created, and the
+ * stroke bounds are only recalculated when the stroke changes.
+ *
+ * @author agent
+ */
+class PathBounds {
+	// The tolerance for the root solver and for tangents to count as parallel
+	private static final double EPSILON = 1e-12;
+	// The amount of intervals each curve is sampled at to find the cusps of
+	// its stroke outlines, and the amount of bisection steps to refine them
+	private static final int CUSP_SAMPLES = 16;
+	private static final int CUSP_ITERATIONS = 32;
+
+	private PathVersions versions;
+	private int itemVersion;
+
+	// The segment values of all paths, six per segment, and the first
+	// segment, the amount of segments and whether it is closed for each path
+	private double[] values;
+	private int[] pathStart;
+	private int[] pathSize;
+	private boolean[] pathClosed;
+	private int pathCount;
+
+	private Rectangle bounds;
+	private Rectangle controlBounds;
+	private Rectangle strokeBounds;
+	// The stroke that the stroke bounds were calculated for
+	private double strokeWidth = -1;
+	private StrokeCap strokeCap;
+	private StrokeJoin strokeJoin;
+	private double miterLimit;
+
+	// The bounds while calculating them
+	private double minX, minY, maxX, maxY;
+	// Temporary storage for roots and tangents
+	private double[] roots = new double[2];
+	private double[] tangent1 = new double[2];
+	private double[] tangent2 = new double[2];
+	private double[] curve = new double[8];
+	private double[] derivatives = new double[4];
+
+	protected PathBounds(List<Path> paths, int itemVersion) {
+		versions = new PathVersions(paths);
+		this.itemVersion = itemVersion;
+		pathCount = paths.size();
+		pathStart = new int[pathCount];
+		pathSize = new int[pathCount];
+		pathClosed = new boolean[pathCount];
+		int total = 0;
+		for (int i = 0; i < pathCount; i++)
+			total += paths.get(i).getSegments().size();
+		values = new double[total * 6];
+		double[] pathValues = null;
+		int start = 0;
+		for (int i = 0; i < pathCount; i++) {
+			Path path = paths.get(i);
+			SegmentList segments = path.getSegments();
+			int count = segments.size();
+			pathStart[i] = start;
+			pathSize[i] = count;
+			pathClosed[i] = path.isClosed();
+			if (count > 0) {
+				// Read all segment values in one go, without creating segments
+				pathValues = segments.getValues(0, count, pathValues);
+				System.arraycopy(pathValues, 0, values, start * 6, count * 6);
+				start += count;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the item still has the given version, and none of the
+	 * paths the bounds were computed from has changed since.
+	 */
+	protected boolean isValid(int itemVersion) {
+		return this.itemVersion == itemVersion && versions.isValid();
+	}
+
+	/**
+	 * Checks whether there are any segments to determine bounds from.
+	 */
+	protected boolean isEmpty() {
+		return values.length == 0;
+	}
+
+	/**
+	 * Returns the bounds of the curves, excluding the stroke.
+	 */
+	protected Rectangle getBounds() {
+		if (bounds == null) {
+			reset();
+			addCurves(0);
+			bounds = createRectangle();
+		}
+		return bounds;
+	}
+
+	/**
+	 * Returns the bounds of the curves including the stroke, or the bounds
+	 * of the curves if the stroke has no width.
+	 */
+	protected Rectangle getStrokeBounds(double width, StrokeCap cap,
+			StrokeJoin join, double miterLimit) {
+		if (width <= 0)
+			return getBounds();
+		if (strokeBounds == null || width != strokeWidth || cap != strokeCap
+				|| join != strokeJoin || miterLimit != this.miterLimit) {
+			strokeWidth = width;
+			strokeCap = cap;
+			strokeJoin = join;
+			this.miterLimit = miterLimit;
+			reset();
+			double radius = width / 2;
+			addCurves(radius);
+			for (int i = 0; i < pathCount; i++)
+				addJoinsAndCaps(i, radius);
+			strokeBounds = createRectangle();
+		}
+		return strokeBounds;
+	}
+
+	/**
+	 * Returns the bounds of all points and handles, which also contain the
+	 * curves, but not the stroke.
+	 */
+	protected Rectangle getControlBounds() {
+		if (controlBounds == null) {
+			reset();
+			for (int i = 0, l = values.length; i < l; i += 2)
+				add(values[i], values[i + 1]);
+			controlBounds = createRectangle();
+		}
+		return controlBounds;
+	}
+
+	private void reset() {
+		minX = minY = Double.MAX_VALUE;
+		maxX = maxY = -Double.MAX_VALUE;
+	}
+
+	private Rectangle createRectangle() {
+		return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	private void add(double x, double y) {
+		if (x < minX)
+			minX = x;
+		if (x > maxX)
+			maxX = x;
+		if (y < minY)
+			minY = y;
+		if (y > maxY)
+			maxY = y;
+	}
+
+	/**
+	 * Adds the bounds of all curves, extended by the radius perpendicular to
+	 * them. As the normal is horizontal where the curve is vertical and vice
+	 * versa, the extended curves have their extrema at the same parameters
+	 * as the curves themselves, or at their ends.
+	 */
+	private void addCurves(double radius) {
+		for (int i = 0; i < pathCount; i++) {
+			int start = pathStart[i], size = pathSize[i];
+			if (size == 0)
+				continue;
+			int offset = start * 6;
+			add(values[offset], values[offset + 1]);
+			int last = pathClosed[i] ? size : size - 1;
+			for (int j = 0; j < last; j++) {
+				int index1 = (start + j) * 6;
+				int index2 = (start + (j + 1) % size) * 6;
+				// The point and handle out of the first segment, and the
+				// handle in and point of the second
+				double p1x = values[index1], p1y = values[index1 + 1];
+				double h1x = values[index1 + 4], h1y = values[index1 + 5];
+				double h2x = values[index2 + 2], h2y = values[index2 + 3];
+				double p2x = values[index2], p2y = values[index2 + 1];
+				add(p2x, p2y);
+				addExtrema(p1x, h1x, h2x, p2x, p1y, h1y, h2y, p2y, radius,
+						false);
+				addExtrema(p1y, h1y, h2y, p2y, p1x, h1x, h2x, p2x, radius,
+						true);
+				if (radius > 0) {
+					// The ends of the curve, extended along their normals
+					if (getStartTangent(index1, index2, tangent1))
+						addNormal(p1x, p1y, tangent1, radius);
+					if (getEndTangent(index1, index2, tangent2))
+						addNormal(p2x, p2y, tangent2, radius);
+					curve[0] = p1x;
+					curve[1] = p1y;
+					curve[2] = h1x;
+					curve[3] = h1y;
+					curve[4] = h2x;
+					curve[5] = h2y;
+					curve[6] = p2x;
+					curve[7] = p2y;
+					addCusps(radius);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the points of the curve at which the coordinate described by the
+	 * values v1 - v4 has its extrema, with the other coordinate described by
+	 * u1 - u4. If radius is larger than 0, the coordinate is extended by it
+	 * in both directions there.
+	 */
+	private void addExtrema(double v1, double v2, double v3, double v4,
+			double u1, double u2, double u3, double u4, double radius,
+			boolean swapped) {
+		// The control values are within the range of the end points, so
+		// the curve has no extrema in between them, except for the stroke.
+		double min = Math.min(v1, v4), max = Math.max(v1, v4);
+		if (radius == 0 && v2 >= min && v2 <= max && v3 >= min && v3 <= max)
+			return;
+		// The derivative of the cubic polynomial, divided by three
+		double a = -v1 + 3 * (v2 - v3) + v4;
+		double b = 2 * (v1 - 2 * v2 + v3);
+		double c = v2 - v1;
+		int count = Curve.solveQuadraticRoots(a, b, c, roots, EPSILON);
+		for (int i = 0; i < count; i++) {
+			double t = roots[i];
+			if (t > 0 && t < 1) {
+				double s = 1 - t;
+				double f1 = s * s * s, f2 = 3 * s * s * t, f3 = 3 * s * t * t,
+						f4 = t * t * t;
+				double v = f1 * v1 + f2 * v2 + f3 * v3 + f4 * v4;
+				double u = f1 * u1 + f2 * u2 + f3 * u3 + f4 * u4;
+				// Only extend where the curve is perpendicular to the
+				// coordinate: Where the other coordinate does not change
+				// either, e.g. at the ends of lines with zero handles, the
+				// tangent is determined by the ends of the curves instead.
+				double d = s * s * (u2 - u1) + 2 * s * t * (u3 - u2)
+						+ t * t * (u4 - u3);
+				double extend = Math.abs(d) > Curve.EPSILON ? radius : 0;
+				if (swapped) {
+					add(u, v - extend);
+					add(u, v + extend);
+				} else {
+					add(v - extend, u);
+					add(v + extend, u);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the cusps of the outlines of the stroke along the curve in curve.
+	 * Apart from the parameters found in {@link #addExtrema}, the outlines
+	 * can also have their extrema where they turn back on themselves, which
+	 * happens where the radius of curvature equals the stroke's radius. These
+	 * parameters are found by sampling the difference and refining its sign
+	 * changes through bisection.
+	 */
+	private void addCusps(double radius) {
+		double previous = 0;
+		for (int i = 0; i <= CUSP_SAMPLES; i++) {
+			double t = (double) i / CUSP_SAMPLES;
+			double value = getCurvatureDifference(t, radius);
+			if (i > 0 && (value < 0) != (previous < 0)) {
+				double min = (double) (i - 1) / CUSP_SAMPLES, max = t;
+				for (int j = 0; j < CUSP_ITERATIONS; j++) {
+					double middle = (min + max) / 2;
+					if ((getCurvatureDifference(middle, radius) < 0)
+							== (previous < 0))
+						min = middle;
+					else
+						max = middle;
+				}
+				double cusp = (min + max) / 2;
+				getCurvatureDifference(cusp, radius);
+				if (normalize(derivatives[0], derivatives[1], tangent1)) {
+					double s = 1 - cusp;
+					double f1 = s * s * s, f2 = 3 * s * s * cusp,
+							f3 = 3 * s * cusp * cusp, f4 = cusp * cusp * cusp;
+					addNormal(
+							f1 * curve[0] + f2 * curve[2] + f3 * curve[4]
+									+ f4 * curve[6],
+							f1 * curve[1] + f2 * curve[3] + f3 * curve[5]
+									+ f4 * curve[7],
+							tangent1, radius);
+				}
+			}
+			previous = value;
+		}
+	}
+
+	/**
+	 * Returns the difference between the cubed speed of the curve and the
+	 * radius times the magnitude of the cross product of its first and
+	 * second derivatives, which is zero where the radius of curvature equals
+	 * the radius. The derivatives are written to derivatives.
+	 */
+	private double getCurvatureDifference(double t, double radius) {
+		double s = 1 - t;
+		for (int i = 0; i < 2; i++) {
+			double v1 = curve[i], v2 = curve[i + 2], v3 = curve[i + 4],
+					v4 = curve[i + 6];
+			derivatives[i] = 3 * (s * s * (v2 - v1) + 2 * s * t * (v3 - v2)
+					+ t * t * (v4 - v3));
+			derivatives[i + 2] = 6 * (s * (v3 - 2 * v2 + v1)
+					+ t * (v4 - 2 * v3 + v2));
+		}
+		double dx = derivatives[0], dy = derivatives[1];
+		double speed = Math.sqrt(dx * dx + dy * dy);
+		return speed * speed * speed - radius
+				* Math.abs(dx * derivatives[3] - dy * derivatives[2]);
+	}
+
+	/**
+	 * Writes the normalized tangent at the beginning of the curve to out, and
+	 * returns false if the curve has no length.
+	 */
+	private boolean getStartTangent(int index1, int index2, double[] out) {
+		double x = values[index1], y = values[index1 + 1];
+		// Fall back on the next control point if the handle is zero
+		return normalize(values[index1 + 4] - x, values[index1 + 5] - y, out)
+				|| normalize(values[index2 + 2] - x, values[index2 + 3] - y,
+						out)
+				|| normalize(values[index2] - x, values[index2 + 1] - y, out);
+	}
+
+	/**
+	 * Writes the normalized tangent at the end of the curve to out, and
+	 * returns false if the curve has no length.
+	 */
+	private boolean getEndTangent(int index1, int index2, double[] out) {
+		double x = values[index2], y = values[index2 + 1];
+		return normalize(x - values[index2 + 2], y - values[index2 + 3], out)
+				|| normalize(x - values[index1 + 4], y - values[index1 + 5],
+						out)
+				|| normalize(x - values[index1], y - values[index1 + 1], out);
+	}
+
+	private static boolean normalize(double x, double y, double[] out) {
+		double length = Math.sqrt(x * x + y * y);
+		if (length <= Curve.EPSILON)
+			return false;
+		out[0] = x / length;
+		out[1] = y / length;
+		return true;
+	}
+
+	private void addNormal(double x, double y, double[] tangent,
+			double radius) {
+		double nx = -tangent[1] * radius, ny = tangent[0] * radius;
+		add(x + nx, y + ny);
+		add(x - nx, y - ny);
+	}
+
+	/**
+	 * Adds the joins between the curves of the path and the caps at its ends
+	 * if it is open. The parts of bevel joins and butt caps are already
+	 * covered by the ends of the curves.
+	 */
+	private void addJoinsAndCaps(int path, double radius) {
+		int start = pathStart[path], size = pathSize[path];
+		boolean closed = pathClosed[path];
+		if (size < 2)
+			return;
+		int first = closed ? 0 : 1;
+		int last = closed ? size : size - 1;
+		for (int i = first; i < last; i++) {
+			int index = (start + i) * 6;
+			int previous = (start + (i + size - 1) % size) * 6;
+			int next = (start + (i + 1) % size) * 6;
+			if (getEndTangent(previous, index, tangent1)
+					&& getStartTangent(index, next, tangent2))
+				addJoin(values[index], values[index + 1], radius);
+		}
+		if (!closed) {
+			int index1 = start * 6, index2 = index1 + 6;
+			if (getStartTangent(index1, index2, tangent1)) {
+				// The cap points away from the path, against the tangent
+				tangent1[0] = -tangent1[0];
+				tangent1[1] = -tangent1[1];
+				addCap(values[index1], values[index1 + 1], tangent1, radius);
+			}
+			index2 = (start + size - 1) * 6;
+			index1 = index2 - 6;
+			if (getEndTangent(index1, index2, tangent1))
+				addCap(values[index2], values[index2 + 1], tangent1, radius);
+		}
+	}
+
+	/**
+	 * Adds the join at the given point, between the curves ending with
+	 * tangent1 and starting with tangent2.
+	 */
+	private void addJoin(double x, double y, double radius) {
+		double dot = tangent1[0] * tangent2[0] + tangent1[1] * tangent2[1];
+		double cross = tangent1[0] * tangent2[1] - tangent1[1] * tangent2[0];
+		// Smooth joins add nothing to the ends of the curves
+		if (dot > 0 && Math.abs(cross) < EPSILON)
+			return;
+		if (strokeJoin == StrokeJoin.ROUND) {
+			add(x - radius, y - radius);
+			add(x + radius, y + radius);
+		} else if (strokeJoin == StrokeJoin.MITER) {
+			// The sine of half the angle between the two curves determines
+			// the length of the miter, relative to the stroke width.
+			double sine = Math.sqrt((1 + dot) / 2);
+			if (sine * miterLimit >= 1) {
+				// The miter points away from the inside of the angle
+				double dx = tangent1[0] - tangent2[0];
+				double dy = tangent1[1] - tangent2[1];
+				double length = Math.sqrt(dx * dx + dy * dy);
+				double distance = radius / sine / length;
+				add(x + dx * distance, y + dy * distance);
+			}
+		}
+	}
+
+	/**
+	 * Adds the cap at the given point, with the tangent pointing away from
+	 * the path.
+	 */
+	private void addCap(double x, double y, double[] tangent, double radius) {
+		if (strokeCap == StrokeCap.ROUND) {
+			add(x - radius, y - radius);
+			add(x + radius, y + radius);
+		} else if (strokeCap == StrokeCap.SQUARE) {
+			double tx = tangent[0] * radius, ty = tangent[1] * radius;
+			double nx = -ty, ny = tx;
+			add(x + tx + nx, y + ty + ny);
+			add(x + tx - nx, y + ty - ny);
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import java.awt.geom.PathIterator;
+
+import com.scriptographer.ScriptographerException;
+
+/**
+ * PathBuilder collects the segments of one or more contours in a buffer of
+ * primitive values, and then creates a {@link Path} or a {@link CompoundPath}
+ * out of them, inserting all segments of each contour through one native
+ * call, rather than one per segment as when calling {@link Path#lineTo} and
+ * similar methods directly.
+ *
+ * @author agent
+ *
+ * @jshide
+ */
+public class PathBuilder {
+	private Document document;
+	// The segments of all contours, in the native segment layout:
+	private float[] values = new float[64 * SegmentList.VALUES_PER_SEGMENT];
+	private int segmentCount = 0;
+	// The first segment of each contour, and whether it is closed:
+	private int[] contourStart = new int[8];
+	private boolean[] contourClosed = new boolean[8];
+	private int contourCount = 0;
+
+	public PathBuilder(Document document) {
+		this.document = document;
+	}
+
+	public PathBuilder() {
+		this(Document.getActiveDocument());
+	}
+
+	/**
+	 * Starts a new contour at the given point.
+	 */
+	public void moveTo(double x, double y) {
+		if (contourCount == contourStart.length) {
+			int[] start = new int[contourCount * 2];
+			System.arraycopy(contourStart, 0, start, 0, contourCount);
+			contourStart = start;
+			boolean[] closed = new boolean[contourCount * 2];
+			System.arraycopy(contourClosed, 0, closed, 0, contourCount);
+			contourClosed = closed;
+		}
+		contourStart[contourCount] = segmentCount;
+		contourClosed[contourCount] = false;
+		contourCount++;
+		addSegment(x, y, x, y);
+	}
+
+	public void moveTo(Point point) {
+		moveTo(point.x, point.y);
+	}
+
+	public void lineTo(double x, double y) {
+		// Just like SegmentList, do not require moveTo() for lines
+		if (contourCount == 0)
+			moveTo(x, y);
+		else
+			addSegment(x, y, x, y);
+	}
+
+	public void lineTo(Point point) {
+		lineTo(point.x, point.y);
+	}
+
+	/**
+	 * Adds a cubic bezier curve to the current contour, defined by two
+	 * handles and a to point.
+	 */
+	public void cubicCurveTo(double handle1X, double handle1Y,
+			double handle2X, double handle2Y, double toX, double toY) {
+		if (contourCount == 0)
+			throw new ScriptographerException("Use a moveTo() command first");
+		// Set the handle out of the current segment, and add the new segment
+		// with handleIn set to the second handle.
+		int index = (segmentCount - 1) * SegmentList.VALUES_PER_SEGMENT;
+		values[index + 4] = (float) handle1X;
+		values[index + 5] = (float) handle1Y;
+		addSegment(toX, toY, handle2X, handle2Y);
+	}
+
+	public void cubicCurveTo(Point handle1, Point handle2, Point to) {
+		cubicCurveTo(handle1.x, handle1.y, handle2.x, handle2.y, to.x, to.y);
+	}
+
+	/**
+	 * Adds a quadratic bezier curve to the current contour, defined by a
+	 * handle and a to point.
+	 */
+	public void quadraticCurveTo(double handleX, double handleY,
+			double toX, double toY) {
+		if (contourCount == 0)
+			throw new ScriptographerException("Use a moveTo() command first");
+		// Convert to a cubic curve, see SegmentList#quadraticCurveTo
+		int index = (segmentCount - 1) * SegmentList.VALUES_PER_SEGMENT;
+		double x1 = values[index];
+		double y1 = values[index + 1];
+		cubicCurveTo(handleX + (1f/3f) * (x1 - handleX),
+				handleY + (1f/3f) * (y1 - handleY),
+				handleX + (1f/3f) * (toX - handleX),
+				handleY + (1f/3f) * (toY - handleY),
+				toX,
+				toY);
+	}
+
+	public void quadraticCurveTo(Point handle, Point to) {
+		quadraticCurveTo(handle.x, handle.y, to.x, to.y);
+	}
+
+	/**
+	 * Closes the current contour.
+	 */
+	public void closePath() {
+		if (contourCount > 0)
+			contourClosed[contourCount - 1] = true;
+	}
+
+	/**
+	 * Adds a contour from an array of segment values, six values per
+	 * segment: The point, the handle in and the handle out, with the handles
+	 * as absolute positions.
+	 *
+	 * @param values the segment values
+	 * @param offset the index of the first value to be used
+	 * @param count the amount of segments
+	 * @param closed whether the contour is closed
+	 */
+	public void addContour(double[] values, int offset, int count,
+			boolean closed) {
+		if (count == 0)
+			return;
+		moveTo(values[offset], values[offset + 1]);
+		int index = (segmentCount - 1) * SegmentList.VALUES_PER_SEGMENT;
+		this.values[index + 2] = (float) values[offset + 2];
+		this.values[index + 3] = (float) values[offset + 3];
+		this.values[index + 4] = (float) values[offset + 4];
+		this.values[index + 5] = (float) values[offset + 5];
+		for (int i = 1; i < count; i++) {
+			int j = offset + i * 6;
+			addSegment(values[j], values[j + 1], values[j + 2], values[j + 3]);
+			index += SegmentList.VALUES_PER_SEGMENT;
+			this.values[index + 4] = (float) values[j + 4];
+			this.values[index + 5] = (float) values[j + 5];
+		}
+		if (closed)
+			closePath();
+	}
+
+	/**
+	 * Adds all contours described by a Java2D PathIterator.
+	 */
+	public void append(PathIterator iter) {
+		float[] f = new float[6];
+		while (!iter.isDone()) {
+			switch (iter.currentSegment(f)) {
+				case PathIterator.SEG_MOVETO:
+					moveTo(f[0], f[1]);
+					break;
+				case PathIterator.SEG_LINETO:
+					lineTo(f[0], f[1]);
+					break;
+				case PathIterator.SEG_QUADTO:
+					quadraticCurveTo(f[0], f[1], f[2], f[3]);
+					break;
+				case PathIterator.SEG_CUBICTO:
+					cubicCurveTo(f[0], f[1], f[2], f[3], f[4], f[5]);
+					break;
+				case PathIterator.SEG_CLOSE:
+					closePath();
+					break;
+			}
+			iter.next();
+		}
+	}
+
+	/**
+	 * Adds a segment with the handle out at the point, and the handle in at
+	 * the given position.
+	 */
+	private void addSegment(double x, double y, double inX, double inY) {
+		int index = segmentCount * SegmentList.VALUES_PER_SEGMENT;
+		if (index == values.length) {
+			float[] tmp = new float[values.length * 2];
+			System.arraycopy(values, 0, tmp, 0, values.length);
+			values = tmp;
+		}
+		values[index] = (float) x;
+		values[index + 1] = (float) y;
+		values[index + 2] = (float) inX;
+		values[index + 3] = (float) inY;
+		values[index + 4] = (float) x;
+		values[index + 5] = (float) y;
+		segmentCount++;
+	}
+
+	/**
+	 * Creates the path item out of the contours added so far, and resets the
+	 * builder. If there is more than one contour, a {@link CompoundPath} is
+	 * created.
+	 *
+	 * @return the new path item, or {@code null} if no contours were added
+	 */
+	public PathItem createPathItem() {
+		if (contourCount == 0)
+			return null;
+		// Determine the corner flags, just like Segment#init does
+		for (int i = 0; i < segmentCount; i++) {
+			int index = i * SegmentList.VALUES_PER_SEGMENT;
+			double x = values[index], y = values[index + 1];
+			double cross = (values[index + 2] - x) * (values[index + 5] - y)
+					- (values[index + 3] - y) * (values[index + 4] - x);
+			values[index + 6] = cross < 10e-6 ? 0f : 1f;
+		}
+		CompoundPath compound = contourCount > 1
+				? document.createCompoundPath() : null;
+		Path path = null;
+		float[] contour = null;
+		for (int i = 0; i < contourCount; i++) {
+			int start = contourStart[i];
+			int end = i + 1 < contourCount ? contourStart[i + 1] : segmentCount;
+			int count = end - start;
+			float[] values;
+			if (start == 0) {
+				values = this.values;
+			} else {
+				// The native insert reads from the beginning of the array
+				int length = count * SegmentList.VALUES_PER_SEGMENT;
+				if (contour == null || contour.length < length)
+					contour = new float[length];
+				System.arraycopy(this.values,
+						start * SegmentList.VALUES_PER_SEGMENT, contour, 0,
+						length);
+				values = contour;
+			}
+			path = document.createPath();
+			path.getSegments().addValues(values, count);
+			if (contourClosed[i])
+				path.setClosed(true);
+			if (compound != null)
+				compound.appendTop(path);
+		}
+		segmentCount = 0;
+		contourCount = 0;
+		return compound != null ? compound : path;
+	}
+}
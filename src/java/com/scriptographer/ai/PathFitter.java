@@ -0,0 +1,474 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+/**
+ * PathFitter fits a series of cubic bezier curves to a series of points in
+ * Java, without creating a path in the document first as
+ * {@link Path#pointsToCurves} requires.
+ *
+ * It is based on the algorithm described by Philip J. Schneider in "An
+ * Algorithm for Automatically Fitting Digitized Curves", Graphics Gems, 1990:
+ * The points are approximated by one curve through least squares, and split
+ * at the point of the largest error until each part is approximated within
+ * the tolerance. Points where the direction changes by more than a given
+ * angle are treated as corners, and fitted on both sides separately.
+ *
+ * The fitter can also be used incrementally, e.g. while the mouse is still
+ * being dragged: Points can be added at any time, and {@link #fit()} then
+ * only fits the last few curves again, keeping the ones before fixed.
+ *
+ * The resulting segments are stored as six values per segment: The point,
+ * the handle in and the handle out, with the handles as absolute positions,
+ * just like {@link SegmentList#getValues} returns them and
+ * {@link PathBuilder#addContour} accepts them.
+ *
+ * @author agent
+ *
+ * @jshide
+ */
+public class PathFitter {
+	private static final double EPSILON = 10e-12;
+	// The amount of curves at the end that are fitted again when new points
+	// are added. The ones before are kept fixed.
+	private static final int TAIL_CURVES = 2;
+
+	private double tolerance;
+	private double cornerCos;
+
+	// The points, alternating x and y
+	private double[] points = new double[256];
+	private int pointCount = 0;
+	// The parameters of the points on the curve fitted to them
+	private double[] parameters = new double[128];
+
+	// The segments, six values per segment
+	private double[] segments = new double[64 * 6];
+	private int segmentCount = 0;
+
+	// The fixed segments and the point that the first of the curves that
+	// are fitted again starts at, with the tangent to use there.
+	private int fixedSegmentCount = 0;
+	private int fixedPoint = 0;
+	private double fixedTangentX, fixedTangentY;
+	private boolean hasFixedTangent = false;
+
+	// The first point and the start tangent of each curve fitted in fit()
+	private int[] curveFirst = new int[16];
+	private double[] curveTangent = new double[32];
+	private int curveCount;
+
+	// The curve currently fitted, eight values
+	private double[] curve = new double[8];
+
+	/**
+	 * @param tolerance the maximum distance of the points from the curves
+	 * @param cornerAngle the change of direction in degrees from which on
+	 *        points are treated as corners, or 0 to not detect corners
+	 */
+	public PathFitter(double tolerance, double cornerAngle) {
+		this.tolerance = tolerance;
+		// Compare the cosines of the angles, and never detect corners if the
+		// angle is 0.
+		cornerCos = cornerAngle > 0
+				? Math.cos(Math.toRadians(cornerAngle)) : -2;
+	}
+
+	public PathFitter(double tolerance) {
+		this(tolerance, 0);
+	}
+
+	/**
+	 * Adds a point to be fitted. Points equal to the previous point are
+	 * ignored.
+	 */
+	public void add(double x, double y) {
+		int index = pointCount * 2;
+		if (pointCount > 0 && points[index - 2] == x && points[index - 1] == y)
+			return;
+		if (index == points.length) {
+			double[] tmp = new double[points.length * 2];
+			System.arraycopy(points, 0, tmp, 0, points.length);
+			points = tmp;
+		}
+		points[index] = x;
+		points[index + 1] = y;
+		pointCount++;
+	}
+
+	public void add(Point point) {
+		add(point.x, point.y);
+	}
+
+	/**
+	 * Adds points from an array of coordinates, alternating x and y.
+	 */
+	public void add(double[] coords, int offset, int count) {
+		for (int i = 0; i < count; i++)
+			add(coords[offset + i * 2], coords[offset + i * 2 + 1]);
+	}
+
+	/**
+	 * Removes all points and segments.
+	 */
+	public void reset() {
+		pointCount = 0;
+		segmentCount = 0;
+		fixedSegmentCount = 0;
+		fixedPoint = 0;
+		hasFixedTangent = false;
+	}
+
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Fits the curves to the points added since the last call, refitting
+	 * only the last few curves.
+	 *
+	 * @return the amount of segments
+	 */
+	public int fit() {
+		segmentCount = fixedSegmentCount;
+		curveCount = 0;
+		int last = pointCount - 1;
+		if (last - fixedPoint < 1) {
+			// Not enough points for a curve yet
+			if (segmentCount == 0 && pointCount == 1)
+				addSegment(points[0], points[1]);
+			return segmentCount;
+		}
+		if (parameters.length < pointCount)
+			parameters = new double[Math.max(pointCount,
+					parameters.length * 2)];
+		if (segmentCount == 0)
+			addSegment(points[fixedPoint * 2], points[fixedPoint * 2 + 1]);
+		// Fit each run of points between corners separately
+		int first = fixedPoint;
+		for (int i = first + 1; i <= last; i++) {
+			if (i == last || isCorner(i)) {
+				double tan1X, tan1Y;
+				if (first == fixedPoint && hasFixedTangent) {
+					tan1X = fixedTangentX;
+					tan1Y = fixedTangentY;
+				} else {
+					tan1X = points[first * 2 + 2] - points[first * 2];
+					tan1Y = points[first * 2 + 3] - points[first * 2 + 1];
+					double length = Math.sqrt(tan1X * tan1X + tan1Y * tan1Y);
+					tan1X /= length;
+					tan1Y /= length;
+				}
+				double tan2X = points[i * 2 - 2] - points[i * 2];
+				double tan2Y = points[i * 2 - 1] - points[i * 2 + 1];
+				double length = Math.sqrt(tan2X * tan2X + tan2Y * tan2Y);
+				fitCubic(first, i, tan1X, tan1Y, tan2X / length,
+						tan2Y / length);
+				first = i;
+			}
+		}
+		// Keep all but the last few curves fixed from now on.
+		if (curveCount > TAIL_CURVES) {
+			// The segments up to the start of that curve are fixed, including
+			// the first segment if nothing was fixed yet.
+			int tail = curveCount - TAIL_CURVES;
+			fixedSegmentCount = Math.max(fixedSegmentCount, 1) + tail;
+			fixedPoint = curveFirst[tail];
+			fixedTangentX = curveTangent[tail * 2];
+			fixedTangentY = curveTangent[tail * 2 + 1];
+			hasFixedTangent = true;
+		}
+		return segmentCount;
+	}
+
+	/**
+	 * Checks if the direction changes by more than the corner angle at the
+	 * given point.
+	 */
+	private boolean isCorner(int index) {
+		if (cornerCos < -1)
+			return false;
+		int i = index * 2;
+		double x1 = points[i] - points[i - 2];
+		double y1 = points[i + 1] - points[i - 1];
+		double x2 = points[i + 2] - points[i];
+		double y2 = points[i + 3] - points[i + 1];
+		double length = Math.sqrt((x1 * x1 + y1 * y1) * (x2 * x2 + y2 * y2));
+		return (x1 * x2 + y1 * y2) / length < cornerCos;
+	}
+
+	/**
+	 * Fits a cubic curve to the points from first to last, with the given
+	 * unit tangents at both ends, splitting it if the error is too large.
+	 */
+	private void fitCubic(int first, int last, double tan1X, double tan1Y,
+			double tan2X, double tan2Y) {
+		// Use a straight line for two points
+		if (last - first == 1) {
+			double x1 = points[first * 2], y1 = points[first * 2 + 1];
+			double x2 = points[last * 2], y2 = points[last * 2 + 1];
+			double dx = x2 - x1, dy = y2 - y1;
+			double dist = Math.sqrt(dx * dx + dy * dy) / 3;
+			curve[0] = x1;
+			curve[1] = y1;
+			curve[2] = x1 + tan1X * dist;
+			curve[3] = y1 + tan1Y * dist;
+			curve[4] = x2 + tan2X * dist;
+			curve[5] = y2 + tan2Y * dist;
+			curve[6] = x2;
+			curve[7] = y2;
+			addCurve(first, tan1X, tan1Y);
+			return;
+		}
+		// Parameterize the points and try to fit a curve, improving the
+		// parameters through reparameterization a few times.
+		chordLengthParameterize(first, last);
+		double error = tolerance * tolerance;
+		double maxError = Math.max(error, error * 4);
+		boolean parametersInOrder = true;
+		int split = (first + last) / 2;
+		for (int i = 0; i <= 4; i++) {
+			generateBezier(first, last, tan1X, tan1Y, tan2X, tan2Y);
+			// Find the maximum squared distance of the points from the curve
+			double max = 0;
+			int index = (first + last + 1) / 2;
+			for (int j = first + 1; j < last; j++) {
+				double dx = evaluate(curve, 0, parameters[j]) - points[j * 2];
+				double dy = evaluate(curve, 1, parameters[j])
+						- points[j * 2 + 1];
+				double dist = dx * dx + dy * dy;
+				if (dist >= max) {
+					max = dist;
+					index = j;
+				}
+			}
+			if (max < error && parametersInOrder) {
+				addCurve(first, tan1X, tan1Y);
+				return;
+			}
+			split = index;
+			// If the error is too large, splitting is better than
+			// reparameterization.
+			if (max >= maxError)
+				break;
+			parametersInOrder = reparameterize(first, last);
+			maxError = max;
+		}
+		// Fitting failed, split at the point of the largest error and fit
+		// both parts, with the tangent of the points around the split.
+		double tanX = points[split * 2 - 2] - points[split * 2 + 2];
+		double tanY = points[split * 2 - 1] - points[split * 2 + 3];
+		double length = Math.sqrt(tanX * tanX + tanY * tanY);
+		if (length > EPSILON) {
+			tanX /= length;
+			tanY /= length;
+		}
+		fitCubic(first, split, tan1X, tan1Y, tanX, tanY);
+		fitCubic(split, last, -tanX, -tanY, tan2X, tan2Y);
+	}
+
+	/**
+	 * Uses least-squares to find the handles of the curve through the first
+	 * and last point, along the given tangents.
+	 */
+	private void generateBezier(int first, int last, double tan1X,
+			double tan1Y, double tan2X, double tan2Y) {
+		double x1 = points[first * 2], y1 = points[first * 2 + 1];
+		double x2 = points[last * 2], y2 = points[last * 2 + 1];
+		double c00 = 0, c01 = 0, c11 = 0, x0 = 0, x01 = 0;
+		for (int i = first; i <= last; i++) {
+			double u = parameters[i], t = 1 - u, b = 3 * u * t;
+			double b0 = t * t * t, b1 = b * t, b2 = b * u, b3 = u * u * u;
+			double a1X = tan1X * b1, a1Y = tan1Y * b1;
+			double a2X = tan2X * b2, a2Y = tan2Y * b2;
+			double tmpX = points[i * 2] - x1 * (b0 + b1) - x2 * (b2 + b3);
+			double tmpY = points[i * 2 + 1] - y1 * (b0 + b1) - y2 * (b2 + b3);
+			c00 += a1X * a1X + a1Y * a1Y;
+			c01 += a1X * a2X + a1Y * a2Y;
+			c11 += a2X * a2X + a2Y * a2Y;
+			x0 += a1X * tmpX + a1Y * tmpY;
+			x01 += a2X * tmpX + a2Y * tmpY;
+		}
+		// Compute the determinants of C and X
+		double detC0C1 = c00 * c11 - c01 * c01;
+		double alpha1, alpha2;
+		if (Math.abs(detC0C1) > EPSILON) {
+			// Kramer's rule
+			alpha1 = (x0 * c11 - x01 * c01) / detC0C1;
+			alpha2 = (c00 * x01 - c01 * x0) / detC0C1;
+		} else {
+			// Matrix is under-determined, try assuming alpha1 == alpha2
+			double c0 = c00 + c01, c1 = c01 + c11;
+			if (Math.abs(c0) > EPSILON)
+				alpha1 = alpha2 = x0 / c0;
+			else if (Math.abs(c1) > EPSILON)
+				alpha1 = alpha2 = x01 / c1;
+			else
+				alpha1 = alpha2 = 0;
+		}
+		// If alpha is negative or too small, use the Wu/Barsky heuristic
+		// instead, and fall back on it as well if the handles would cross.
+		double lineX = x2 - x1, lineY = y2 - y1;
+		double segLength = Math.sqrt(lineX * lineX + lineY * lineY);
+		double eps = EPSILON * segLength;
+		if (alpha1 < eps || alpha2 < eps || alpha1 * (tan1X * lineX
+				+ tan1Y * lineY) - alpha2 * (tan2X * lineX + tan2Y * lineY)
+				> segLength * segLength) {
+			alpha1 = alpha2 = segLength / 3;
+		}
+		curve[0] = x1;
+		curve[1] = y1;
+		curve[2] = x1 + tan1X * alpha1;
+		curve[3] = y1 + tan1Y * alpha1;
+		curve[4] = x2 + tan2X * alpha2;
+		curve[5] = y2 + tan2Y * alpha2;
+		curve[6] = x2;
+		curve[7] = y2;
+	}
+
+	/**
+	 * Assigns parameters to the points according to their relative distance
+	 * along the polyline.
+	 */
+	private void chordLengthParameterize(int first, int last) {
+		parameters[first] = 0;
+		for (int i = first + 1; i <= last; i++) {
+			double dx = points[i * 2] - points[i * 2 - 2];
+			double dy = points[i * 2 + 1] - points[i * 2 - 1];
+			parameters[i] = parameters[i - 1] + Math.sqrt(dx * dx + dy * dy);
+		}
+		double length = parameters[last];
+		for (int i = first + 1; i <= last; i++)
+			parameters[i] /= length;
+	}
+
+	/**
+	 * Improves the parameters of the points through one Newton-Raphson step
+	 * each, and returns whether they are still in order.
+	 */
+	private boolean reparameterize(int first, int last) {
+		for (int i = first; i <= last; i++) {
+			double u = parameters[i];
+			double px = points[i * 2], py = points[i * 2 + 1];
+			// The point on the curve and the first and second derivatives
+			double diffX = evaluate(curve, 0, u) - px;
+			double diffY = evaluate(curve, 1, u) - py;
+			double t = 1 - u;
+			double d1X = 3 * (t * t * (curve[2] - curve[0])
+					+ 2 * t * u * (curve[4] - curve[2])
+					+ u * u * (curve[6] - curve[4]));
+			double d1Y = 3 * (t * t * (curve[3] - curve[1])
+					+ 2 * t * u * (curve[5] - curve[3])
+					+ u * u * (curve[7] - curve[5]));
+			double d2X = 6 * (t * (curve[4] - 2 * curve[2] + curve[0])
+					+ u * (curve[6] - 2 * curve[4] + curve[2]));
+			double d2Y = 6 * (t * (curve[5] - 2 * curve[3] + curve[1])
+					+ u * (curve[7] - 2 * curve[5] + curve[3]));
+			double df = d1X * d1X + d1Y * d1Y + diffX * d2X + diffY * d2Y;
+			if (Math.abs(df) > EPSILON)
+				parameters[i] = u - (diffX * d1X + diffY * d1Y) / df;
+		}
+		for (int i = first + 1; i <= last; i++) {
+			if (parameters[i] <= parameters[i - 1])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates the x (coord = 0) or y (coord = 1) coordinate of the curve
+	 * at t.
+	 */
+	private static double evaluate(double[] curve, int coord, double t) {
+		double u = 1 - t;
+		return u * u * u * curve[coord] + 3 * u * u * t * curve[coord + 2]
+				+ 3 * u * t * t * curve[coord + 4] + t * t * t * curve[coord + 6];
+	}
+
+	/**
+	 * Adds the current curve, setting the handle out of the last segment and
+	 * adding a new segment for the end point.
+	 */
+	private void addCurve(int first, double tan1X, double tan1Y) {
+		if (curveCount == curveFirst.length) {
+			int[] tmp = new int[curveCount * 2];
+			System.arraycopy(curveFirst, 0, tmp, 0, curveCount);
+			curveFirst = tmp;
+			double[] tangents = new double[curveCount * 4];
+			System.arraycopy(curveTangent, 0, tangents, 0, curveCount * 2);
+			curveTangent = tangents;
+		}
+		curveFirst[curveCount] = first;
+		curveTangent[curveCount * 2] = tan1X;
+		curveTangent[curveCount * 2 + 1] = tan1Y;
+		curveCount++;
+		int index = (segmentCount - 1) * 6;
+		segments[index + 4] = curve[2];
+		segments[index + 5] = curve[3];
+		addSegment(curve[6], curve[7]);
+		index += 6;
+		segments[index + 2] = curve[4];
+		segments[index + 3] = curve[5];
+	}
+
+	/**
+	 * Adds a segment without handles.
+	 */
+	private void addSegment(double x, double y) {
+		int index = segmentCount * 6;
+		if (index == segments.length) {
+			double[] tmp = new double[segments.length * 2];
+			System.arraycopy(segments, 0, tmp, 0, segments.length);
+			segments = tmp;
+		}
+		for (int i = 0; i < 6; i += 2) {
+			segments[index + i] = x;
+			segments[index + i + 1] = y;
+		}
+		segmentCount++;
+	}
+
+	/**
+	 * The amount of segments produced by the last call of {@link #fit()}.
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * The values of the segments produced by the last call of
+	 * {@link #fit()}, six values per segment. The array may be longer than
+	 * needed for the segments.
+	 */
+	public double[] getValues() {
+		return segments;
+	}
+
+	/**
+	 * Creates segments from the values produced by the last call of
+	 * {@link #fit()}.
+	 */
+	public Segment[] getSegments() {
+		Segment[] result = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			int index = i * 6;
+			double x = segments[index], y = segments[index + 1];
+			result[i] = new Segment(x, y,
+					segments[index + 2] - x, segments[index + 3] - y,
+					segments[index + 4] - x, segments[index + 5] - y);
+		}
+		return result;
+	}
+}
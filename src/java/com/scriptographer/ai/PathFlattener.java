@@ -0,0 +1,289 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import com.scratchdisk.list.List;
+
+/**
+ * PathFlattener approximates the curves of paths by polylines, entirely in
+ * Java and without modifying the paths, as opposed to
+ * {@link Path#curvesToPoints}. The curves are subdivided adaptively until
+ * each part is flat enough, using the same criterion as {@link Curve}, and
+ * optionally until the points are not further apart than a given distance.
+ *
+ * The resulting points are streamed to a {@link Receiver}, e.g. a
+ * {@link Polyline} which collects them in a primitive buffer.
+ *
+ * @author agent
+ *
+ * @jshide
+ */
+public class PathFlattener {
+	private static final int MAX_DEPTH = 16;
+
+	private double flatness;
+	private double maxPointDistance;
+	// The parts of the curve that still need to be processed, eight values
+	// per part, and the depth of each part
+	private double[] stack = new double[(MAX_DEPTH + 1) * 8];
+	private int[] depths = new int[MAX_DEPTH + 1];
+
+	/**
+	 * Receives the points of the flattened contours.
+	 */
+	public interface Receiver {
+		public void moveTo(double x, double y);
+
+		public void lineTo(double x, double y);
+
+		/**
+		 * Called at the end of closed contours, after the line back to the
+		 * first point was received.
+		 */
+		public void closePath();
+	}
+
+	/**
+	 * @param maxPointDistance the maximum distance between the generated
+	 *        points, or 0 for no limit
+	 * @param flatness the maximum distance of the lines from the curves
+	 */
+	public PathFlattener(double maxPointDistance, double flatness) {
+		this.maxPointDistance = maxPointDistance;
+		this.flatness = flatness;
+	}
+
+	public PathFlattener(double flatness) {
+		this(0, flatness);
+	}
+
+	/**
+	 * Flattens one contour given as segment values, six values per segment:
+	 * The point, the handle in and the handle out, with the handles as
+	 * absolute positions, as returned by {@link SegmentList#getValues}.
+	 *
+	 * @param values the segment values
+	 * @param offset the index of the first value to be used
+	 * @param count the amount of segments
+	 * @param closed whether the contour is closed
+	 * @param receiver the receiver of the points
+	 */
+	public void flatten(double[] values, int offset, int count,
+			boolean closed, Receiver receiver) {
+		if (count == 0)
+			return;
+		receiver.moveTo(values[offset], values[offset + 1]);
+		int last = closed ? count : count - 1;
+		for (int i = 0; i < last; i++) {
+			int index1 = offset + i * 6;
+			int index2 = i + 1 < count ? index1 + 6 : offset;
+			// The point and handle out of the first segment, and the handle
+			// in and point of the second
+			stack[0] = values[index1];
+			stack[1] = values[index1 + 1];
+			stack[2] = values[index1 + 4];
+			stack[3] = values[index1 + 5];
+			stack[4] = values[index2 + 2];
+			stack[5] = values[index2 + 3];
+			stack[6] = values[index2];
+			stack[7] = values[index2 + 1];
+			flattenCurve(receiver);
+		}
+		if (closed)
+			receiver.closePath();
+	}
+
+	public void flatten(Path path, Receiver receiver) {
+		SegmentList segments = path.getSegments();
+		int count = segments.size();
+		if (count > 0)
+			flatten(segments.getValues(0, count, null), 0, count,
+					path.isClosed(), receiver);
+	}
+
+	/**
+	 * Flattens all contours of a {@link Path} or a {@link CompoundPath}.
+	 */
+	public void flatten(PathItem item, Receiver receiver) {
+		List<Path> paths = item.getAllPaths();
+		double[] values = null;
+		for (int i = 0, l = paths.size(); i < l; i++) {
+			Path path = paths.get(i);
+			SegmentList segments = path.getSegments();
+			int count = segments.size();
+			if (count > 0) {
+				values = segments.getValues(0, count, values);
+				flatten(values, 0, count, path.isClosed(), receiver);
+			}
+		}
+	}
+
+	/**
+	 * Flattens the curve at the beginning of the stack, through subdivision
+	 * until the parts are flat enough, with the stack holding the parts that
+	 * still need to be processed.
+	 */
+	private void flattenCurve(Receiver receiver) {
+		double maxDistance = maxPointDistance > 0
+				? maxPointDistance * maxPointDistance : 0;
+		int size = 1;
+		depths[0] = 0;
+		while (size > 0) {
+			int offset = --size * 8;
+			int depth = depths[size];
+			double p1x = stack[offset], p1y = stack[offset + 1];
+			double p2x = stack[offset + 6], p2y = stack[offset + 7];
+			boolean done = depth >= MAX_DEPTH;
+			if (!done) {
+				done = Curve.isFlatEnough(stack, offset, flatness);
+				if (done && maxDistance > 0) {
+					double dx = p2x - p1x, dy = p2y - p1y;
+					done = dx * dx + dy * dy <= maxDistance;
+				}
+			}
+			if (done) {
+				receiver.lineTo(p2x, p2y);
+			} else {
+				// Split into two halves, the right one replaces the curve,
+				// the left one is pushed on top of it, to be processed first.
+				double c1x = stack[offset + 2], c1y = stack[offset + 3];
+				double c2x = stack[offset + 4], c2y = stack[offset + 5];
+				double p3x = (p1x + c1x) / 2, p3y = (p1y + c1y) / 2;
+				double p4x = (c1x + c2x) / 2, p4y = (c1y + c2y) / 2;
+				double p5x = (c2x + p2x) / 2, p5y = (c2y + p2y) / 2;
+				double p6x = (p3x + p4x) / 2, p6y = (p3y + p4y) / 2;
+				double p7x = (p4x + p5x) / 2, p7y = (p4y + p5y) / 2;
+				double p8x = (p6x + p7x) / 2, p8y = (p6y + p7y) / 2;
+				stack[offset] = p8x;
+				stack[offset + 1] = p8y;
+				stack[offset + 2] = p7x;
+				stack[offset + 3] = p7y;
+				stack[offset + 4] = p5x;
+				stack[offset + 5] = p5y;
+				int left = offset + 8;
+				stack[left] = p1x;
+				stack[left + 1] = p1y;
+				stack[left + 2] = p3x;
+				stack[left + 3] = p3y;
+				stack[left + 4] = p6x;
+				stack[left + 5] = p6y;
+				stack[left + 6] = p8x;
+				stack[left + 7] = p8y;
+				depths[size++] = depth + 1;
+				depths[size++] = depth + 1;
+			}
+		}
+	}
+
+	/**
+	 * A receiver that collects the points of all contours in a primitive
+	 * buffer, so the flattened geometry can be reused.
+	 */
+	public static class Polyline implements Receiver {
+		private double[] coords = new double[256];
+		private int pointCount = 0;
+		private int[] contourStart = new int[4];
+		private boolean[] contourClosed = new boolean[4];
+		private int contourCount = 0;
+
+		public void moveTo(double x, double y) {
+			if (contourCount == contourStart.length) {
+				int[] start = new int[contourCount * 2];
+				System.arraycopy(contourStart, 0, start, 0, contourCount);
+				contourStart = start;
+				boolean[] closed = new boolean[contourCount * 2];
+				System.arraycopy(contourClosed, 0, closed, 0, contourCount);
+				contourClosed = closed;
+			}
+			contourStart[contourCount] = pointCount;
+			contourClosed[contourCount] = false;
+			contourCount++;
+			lineTo(x, y);
+		}
+
+		public void lineTo(double x, double y) {
+			int index = pointCount * 2;
+			if (index == coords.length) {
+				double[] tmp = new double[coords.length * 2];
+				System.arraycopy(coords, 0, tmp, 0, coords.length);
+				coords = tmp;
+			}
+			coords[index] = x;
+			coords[index + 1] = y;
+			pointCount++;
+		}
+
+		public void closePath() {
+			if (contourCount > 0)
+				contourClosed[contourCount - 1] = true;
+		}
+
+		/**
+		 * Removes all points, keeping the buffers for reuse.
+		 */
+		public void clear() {
+			pointCount = 0;
+			contourCount = 0;
+		}
+
+		/**
+		 * The amount of points in all contours.
+		 */
+		public int getPointCount() {
+			return pointCount;
+		}
+
+		public double getX(int index) {
+			return coords[index * 2];
+		}
+
+		public double getY(int index) {
+			return coords[index * 2 + 1];
+		}
+
+		/**
+		 * The coordinates of all points, alternating x and y. The array may
+		 * be longer than needed for the points.
+		 */
+		public double[] getCoordinates() {
+			return coords;
+		}
+
+		public int getContourCount() {
+			return contourCount;
+		}
+
+		/**
+		 * The index of the first point of the contour.
+		 */
+		public int getContourStart(int contour) {
+			return contourStart[contour];
+		}
+
+		/**
+		 * The amount of points of the contour. Closed contours end with the
+		 * first point again.
+		 */
+		public int getContourSize(int contour) {
+			return (contour + 1 < contourCount
+					? contourStart[contour + 1] : pointCount)
+					- contourStart[contour];
+		}
+
+		public boolean isContourClosed(int contour) {
+			return contourClosed[contour];
+		}
+	}
+}
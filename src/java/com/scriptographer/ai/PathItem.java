@@ -17,7 +17,6 @@ package com.scriptographer.ai;
 import java.awt.BasicStroke;
 import java.awt.Graphics2D;
 import java.awt.Shape;
-import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
 import java.util.ArrayList;
 
@@ -27,6 +26,22 @@ import com.scratchdisk.list.List;
  * @author lehni
  */
 public abstract class PathItem extends Item {
+	// The hierarchy of curve bounds used to find intersections, cached until
+	// the geometry of the item changes.
+	private CurveHierarchy curveHierarchy = null;
+	// The edge table used to test points for containment, cached in the
+	// same way.
+	private ContainmentIndex containmentIndex = null;
+	// The bounds computed in Java, cached until the item or its geometry
+	// changes.
+	private PathBounds pathBounds = null;
+	// Whether the bounds are determined natively instead, and the version
+	// of the item this was checked for.
+	private boolean nativeBounds = false;
+	private int nativeBoundsVersion = -1;
+
+	private static boolean parallelIntersections = false;
+
 	/**
 	 * Wraps an AIArtHandle in a Path object
 	 */
@@ -48,6 +63,11 @@ public abstract class PathItem extends Item {
 	 */
 	public abstract GeneralPath toShape();
 
+	/**
+	 * Specifies whether the item is used as a guide.
+	 */
+	public abstract boolean isGuide();
+
 	/*
 	 *  PostScript-like interface: moveTo, lineTo, curveTo, arcTo
 	 */
@@ -276,26 +296,62 @@ public abstract class PathItem extends Item {
 	 * Checks if the interior of the path intersects with the interior of the
 	 * specified path.
 	 * 
+	 * Curves that cross each other count as an intersection, also for open
+	 * paths and for paths that enclose no area, such as straight lines, as
+	 * opposed to their filled shapes, which may not overlap.
+	 * 
 	 * @param item
 	 * @return {@true if the paths intersect}
 	 */
 	public boolean intersects(PathItem item) {
-		Area area = new Area(this.toShape());
-		area.intersect(new Area(item.toShape()));
-		return !area.isEmpty();
+		// Exit as early as possible: Items with separate bounds cannot
+		// intersect, and curves crossing each other prove that they do.
+		if (!getBounds().intersects(item.getBounds()))
+			return false;
+		if (getCurveHierarchy().hasCrossings(item.getCurveHierarchy(),
+				Curve.EPSILON))
+			return true;
+		// Otherwise each contour lies either completely inside or outside
+		// of the other item, so one point per contour needs to be tested.
+		ContainmentIndex index = getContainmentIndex();
+		ContainmentIndex other = item.getContainmentIndex();
+		return index.containsAnyContour(other,
+				getWindingRule() == WindingRule.EVEN_ODD)
+				|| other.containsAnyContour(index,
+						item.getWindingRule() == WindingRule.EVEN_ODD);
 	}
 
 	/**
 	 * Checks if the interior of the path contains the interior of the specified
 	 * path.
 	 * 
+	 * Any curves crossing each other mean that the path is not contained,
+	 * also where they cross contours within the filled area of a compound
+	 * path with the non-zero winding rule.
+	 * 
 	 * @param item
 	 * @return {@true if the path contains the specified path}
 	 */
 	public boolean contains(PathItem item) {
-		Area area = new Area(item.toShape());
-		area.subtract(new Area(this.toShape()));
-		return area.isEmpty();
+		// The bounds of this item need to contain the ones of the other,
+		// with a tolerance for the bounds' limited precision.
+		Rectangle bounds = getBounds(), other = item.getBounds();
+		double epsilon = Curve.EPSILON;
+		if (other.x < bounds.x - epsilon || other.y < bounds.y - epsilon
+				|| other.x + other.width > bounds.x + bounds.width + epsilon
+				|| other.y + other.height > bounds.y + bounds.height + epsilon)
+			return false;
+		if (getCurveHierarchy().hasCrossings(item.getCurveHierarchy(),
+				Curve.EPSILON))
+			return false;
+		// All contours of the item need to lie inside this one, and none of
+		// the contours of this one, e.g. holes, inside the item.
+		ContainmentIndex index = getContainmentIndex();
+		ContainmentIndex otherIndex = item.getContainmentIndex();
+		return index.containsAllContours(otherIndex,
+				getWindingRule() == WindingRule.EVEN_ODD)
+				&& !otherIndex.containsAnyContour(index,
+						item.getWindingRule() == WindingRule.EVEN_ODD);
 	}
 
 	/**
@@ -305,22 +361,81 @@ public abstract class PathItem extends Item {
 	 * @return {@true if the point is contained within the path}
 	 */
 	public boolean contains(Point point) {
-		return this.toShape().contains(point.toPoint2D());
+		return getContainmentIndex().contains(point.x, point.y,
+				getWindingRule() == WindingRule.EVEN_ODD);
+	}
+
+	/**
+	 * Checks which of the specified points are contained within the interior
+	 * of the path.
+	 * 
+	 * @param points
+	 * @return an array with a {@code boolean} value for each of the points,
+	 *         {@code true} if the point is contained within the path
+	 */
+	public boolean[] contains(Point[] points) {
+		ContainmentIndex index = getContainmentIndex();
+		boolean evenOdd = getWindingRule() == WindingRule.EVEN_ODD;
+		boolean[] result = new boolean[points.length];
+		for (int i = 0; i < points.length; i++) {
+			Point point = points[i];
+			result[i] = index.contains(point.x, point.y, evenOdd);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks which of the points stored in the coordinate array as pairs of x
+	 * and y values are contained within the interior of the path, without
+	 * creating any objects if a result array of sufficient length is passed.
+	 * 
+	 * @param coords the coordinates of the points, alternating x and y
+	 * @param result the array to receive the results, or {@code null}
+	 * @return the array with the results
+	 * @jshide
+	 */
+	public boolean[] contains(double[] coords, boolean[] result) {
+		return contains(coords, 0, coords.length / 2, result);
+	}
+
+	/**
+	 * Checks which of the points in the given range of the coordinate array
+	 * are contained within the interior of the path, e.g. for the
+	 * coordinates of a {@link PointBuffer}, which may be longer than needed
+	 * for its points.
+	 * 
+	 * @param coords the coordinates of the points, alternating x and y
+	 * @param offset the index of the first value to be checked
+	 * @param count the amount of points to check
+	 * @param result the array to receive the results from index 0 on, or
+	 *        {@code null}
+	 * @return the array with the results
+	 * @see #contains(double[], boolean[])
+	 * @jshide
+	 */
+	public boolean[] contains(double[] coords, int offset, int count,
+			boolean[] result) {
+		if (result == null || result.length < count)
+			result = new boolean[count];
+		ContainmentIndex index = getContainmentIndex();
+		boolean evenOdd = getWindingRule() == WindingRule.EVEN_ODD;
+		for (int i = 0; i < count; i++) {
+			int j = offset + i * 2;
+			result[i] = index.contains(coords[j], coords[j + 1], evenOdd);
+		}
+		return result;
 	}
 
 	/**
 	 * {@grouptitle Boolean Operations}
 	 * 
-	 * Returns the intersection of the paths as a new path
+	 * Returns the intersection of the paths as a new path, or {@code null} if
+	 * they do not intersect.
 	 * 
 	 * @param item
 	 */
 	public PathItem intersect(PathItem item) {
-		Area area = new Area(this.toShape());
-		area.intersect(new Area(item.toShape()));
-		PathItem res = document.createPathItem(area);
-		res.setStyle(this.getStyle());
-		return res;
+		return getBooleanResult(item, PathBoolean.Operation.INTERSECT);
 	}
 
 	/**
@@ -330,24 +445,26 @@ public abstract class PathItem extends Item {
 	 * @param item
 	 */
 	public PathItem unite(PathItem item) {
-		Area area = new Area(this.toShape());
-		area.add(new Area(item.toShape()));
-		PathItem res = document.createPathItem(area);
-		res.setStyle(this.getStyle());
-		return res;
+		return getBooleanResult(item, PathBoolean.Operation.UNITE);
 	}
 
 	/**
 	 * Subtracts the shape of the specified path from the path and returns it as
-	 * a new path.
+	 * a new path, or {@code null} if nothing remains.
 	 * 
 	 * @param item
 	 */
 	public PathItem exclude(PathItem item) {
-		Area area = new Area(this.toShape());
-		area.subtract(new Area(item.toShape()));
-		PathItem res = document.createPathItem(area);
-		res.setStyle(this.getStyle());
+		return getBooleanResult(item, PathBoolean.Operation.EXCLUDE);
+	}
+
+	private PathItem getBooleanResult(PathItem item,
+			PathBoolean.Operation operation) {
+		Segment[][] contours =
+				new PathBoolean(operation).getContours(this, item);
+		PathItem res = document.createPathItem(contours);
+		if (res != null)
+			res.setStyle(this.getStyle());
 		return res;
 	}
 
@@ -358,36 +475,434 @@ public abstract class PathItem extends Item {
 	 */
 	protected abstract List<Curve> getAllCurves();
 
+	/**
+	 * Returns all paths contained in the Item. For {@link Path} items this is
+	 * a list containing just the path itself, for {@link CompoundPath} items
+	 * it returns the {@link Path} items contained inside.
+	 */
+	protected abstract List<Path> getAllPaths();
+
+	/**
+	 * Returns the bounds hierarchy of all curves in the item, rebuilding it
+	 * if any of the contained paths has changed since it was last built.
+	 */
+	protected CurveHierarchy getCurveHierarchy() {
+		List<Path> paths = getAllPaths();
+		if (curveHierarchy == null || !curveHierarchy.isValid(paths))
+			curveHierarchy = new CurveHierarchy(paths);
+		return curveHierarchy;
+	}
+
+	/**
+	 * Returns the curves of the item approximated by polylines, computed in
+	 * Java without modifying the item, as opposed to
+	 * {@link Path#curvesToPoints}.
+	 * 
+	 * @param maxPointDistance the maximum distance between the generated
+	 *        points, or 0 for no limit
+	 * @param flatness the maximum distance of the lines from the curves
+	 * @jshide
+	 */
+	public PathFlattener.Polyline getPolyline(double maxPointDistance,
+			double flatness) {
+		PathFlattener.Polyline polyline = new PathFlattener.Polyline();
+		new PathFlattener(maxPointDistance, flatness).flatten(this, polyline);
+		return polyline;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public PathFlattener.Polyline getPolyline(double flatness) {
+		return getPolyline(0, flatness);
+	}
+
+	/**
+	 * Returns the edge table of the flattened item used to test points for
+	 * containment, rebuilding it if any of the contained paths has changed
+	 * since it was last built.
+	 */
+	protected ContainmentIndex getContainmentIndex() {
+		List<Path> paths = getAllPaths();
+		if (containmentIndex == null || !containmentIndex.isValid(paths))
+			containmentIndex = new ContainmentIndex(paths);
+		return containmentIndex;
+	}
+
+	/**
+	 * Returns the bounds of the item computed in Java, recomputing them if
+	 * the item has changed since they were last computed. Only the item's
+	 * version and the geometry of the paths the bounds were computed from are
+	 * compared, so the children of compound paths are not looked up again
+	 * while the item remains unchanged.
+	 */
+	private PathBounds getPathBounds() {
+		if (pathBounds == null || !pathBounds.isValid(version))
+			pathBounds = new PathBounds(getAllPaths(), version);
+		return pathBounds;
+	}
+
+	/**
+	 * Checks whether the bounds of the item need to be determined natively:
+	 * Illustrator leaves out guides, and brushes and effects extend the
+	 * bounds in ways that cannot be computed from the curves. The result is
+	 * cached until the item changes.
+	 */
+	private boolean hasNativeBounds() {
+		if (nativeBoundsVersion != version) {
+			nativeBounds = isGuide() || hasExtendedBounds();
+			nativeBoundsVersion = version;
+		}
+		return nativeBounds;
+	}
+
+	public Rectangle getBounds() {
+		if (hasNativeBounds())
+			return super.getBounds();
+		PathBounds bounds = getPathBounds();
+		if (bounds.isEmpty())
+			return super.getBounds();
+		// Return a copy, as rectangles can be modified.
+		return new Rectangle(bounds.getBounds());
+	}
+
+	public Rectangle getStrokeBounds() {
+		if (hasNativeBounds())
+			return super.getStrokeBounds();
+		PathBounds bounds = getPathBounds();
+		if (bounds.isEmpty())
+			return super.getStrokeBounds();
+		PathStyle style = getStyle();
+		return new Rectangle(bounds.getStrokeBounds(getStrokeWidth(style),
+				style.getStrokeCap(), style.getStrokeJoin(),
+				getMiterLimit(style)));
+	}
+
+	public Rectangle getControlBounds() {
+		if (hasNativeBounds())
+			return super.getControlBounds();
+		PathBounds bounds = getPathBounds();
+		if (bounds.isEmpty())
+			return super.getControlBounds();
+		return new Rectangle(bounds.getControlBounds());
+	}
+
+	/**
+	 * Returns the width of the stroke, or 0 if the item is not stroked.
+	 */
+	private static double getStrokeWidth(PathStyle style) {
+		Color color = style.getStrokeColor();
+		Float width = style.getStrokeWidth();
+		return color != null && color != Color.NONE && width != null
+				? width : 0;
+	}
+
+	private static double getMiterLimit(PathStyle style) {
+		Float limit = style.getMiterLimit();
+		// Illustrator's default miter limit
+		return limit != null ? limit : 4;
+	}
+
+	/**
+	 * {@grouptitle Sampling}
+	 * 
+	 * Returns the points at the given offsets along the item, as a flat array
+	 * of x and y coordinates. For {@link CompoundPath} items, the offsets run
+	 * through all the contained paths, in the order of their appearance.
+	 * Offsets beyond the end of the item produce {@code NaN} coordinates.
+	 * 
+	 * The offsets are processed in one pass along the curves, so sorted
+	 * offsets are found in constant time each. Unsorted offsets are allowed
+	 * but are slower to look up.
+	 * 
+	 * @param offsets the offsets at which to find the points
+	 * @return the coordinates of the points
+	 */
+	public double[] getPoints(double[] offsets) {
+		return getPoints(offsets, null);
+	}
+
+	/**
+	 * Writes the points to the given array instead of creating a new one. A
+	 * new array is only created if out is {@code null} or too small.
+	 * 
+	 * @jshide
+	 */
+	public double[] getPoints(double[] offsets, double[] out) {
+		return sample(offsets, offsets.length, false, out);
+	}
+
+	/**
+	 * Returns the points and the tangential vectors at the given offsets along
+	 * the item, as a flat array of four values per offset: x, y, and the x and
+	 * y components of the tangent.
+	 * 
+	 * @param offsets the offsets at which to find the points
+	 * @return the coordinates of the points and tangents
+	 */
+	public double[] getPointsAndTangents(double[] offsets) {
+		return getPointsAndTangents(offsets, null);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public double[] getPointsAndTangents(double[] offsets, double[] out) {
+		return sample(offsets, offsets.length, true, out);
+	}
+
+	/**
+	 * Returns the given amount of points, evenly distributed along the item
+	 * from its beginning to its end, as a flat array of x and y coordinates.
+	 * 
+	 * @param count the amount of points
+	 * @return the coordinates of the points
+	 */
+	public double[] sampleUniform(int count) {
+		return sampleUniform(count, null);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public double[] sampleUniform(int count, double[] out) {
+		return sample(null, count, false, out);
+	}
+
+	/**
+	 * The shared implementation of the sampling methods above. If offsets
+	 * is null, count samples are spread evenly over the whole length. The
+	 * curve values are only read once for each curve that is hit, and no
+	 * objects are created per sample.
+	 */
+	private double[] sample(double[] offsets, int count, boolean tangents,
+			double[] out) {
+		int valueCount = tangents ? 4 : 2;
+		if (out == null || out.length < count * valueCount)
+			out = new double[count * valueCount];
+		List<Path> paths = getAllPaths();
+		int pathCount = paths.size();
+		// The cumulative offsets at which the paths start
+		double[] pathOffsets = new double[pathCount + 1];
+		for (int i = 0; i < pathCount; i++)
+			pathOffsets[i + 1] = pathOffsets[i] + paths.get(i).getLength();
+		double length = pathOffsets[pathCount];
+		double step = count > 1 ? length / (count - 1) : 0;
+		double[][] values = new double[4][2];
+		int pathIndex = 0, curveIndex = -1;
+		double[] curveOffsets = null;
+		CurveList curves = null;
+		for (int i = 0, j = 0; i < count; i++, j += valueCount) {
+			double offset = offsets != null ? offsets[i]
+					: Math.min(i * step, length);
+			if (pathCount == 0 || offset > length) {
+				for (int k = 0; k < valueCount; k++)
+					out[j + k] = Double.NaN;
+				continue;
+			}
+			// Find the path, moving forward from the current one, or starting
+			// over for offsets that lie before it.
+			int newPathIndex = offset < pathOffsets[pathIndex] ? 0 : pathIndex;
+			while (newPathIndex < pathCount - 1
+					&& offset > pathOffsets[newPathIndex + 1])
+				newPathIndex++;
+			if (newPathIndex != pathIndex || curves == null) {
+				pathIndex = newPathIndex;
+				Path path = paths.get(pathIndex);
+				curveOffsets = path.getCurveOffsets();
+				curves = path.getCurves();
+				curveIndex = -1;
+			}
+			int curveCount = curveOffsets.length - 1;
+			if (curveCount == 0) {
+				for (int k = 0; k < valueCount; k++)
+					out[j + k] = Double.NaN;
+				continue;
+			}
+			double pathOffset = offset - pathOffsets[pathIndex];
+			// Same as Path.getCurveIndex, but walking forward for sorted
+			// offsets
+			int newCurveIndex;
+			if (curveIndex != -1 && pathOffset >= curveOffsets[curveIndex]) {
+				newCurveIndex = curveIndex;
+				while (newCurveIndex < curveCount - 1
+						&& pathOffset > curveOffsets[newCurveIndex + 1])
+					newCurveIndex++;
+			} else {
+				newCurveIndex = Path.getCurveIndex(curveOffsets,
+						Math.min(pathOffset, curveOffsets[curveCount]));
+			}
+			if (newCurveIndex != curveIndex) {
+				curveIndex = newCurveIndex;
+				curves.get(curveIndex).getCurveValues(values);
+			}
+			double curveStart = curveOffsets[curveIndex];
+			double t = Curve.getParameter(values, pathOffset - curveStart,
+					curveOffsets[curveIndex + 1] - curveStart);
+			Curve.getPoint(values, t, out, j);
+			if (tangents)
+				Curve.getTangent(values, t, out, j + 2);
+		}
+		return out;
+	}
+
 	/**
 	 * Returns all interesections between two {@link Path} items in an array of
 	 * {@link CurveLocation} objects. {@link CompoundPath} items are support
 	 * too.
 	 */
-	public CurveLocation[] getIntersections(PathItem path) {
-		// First check the bounds of the two paths. If they don't intersect,
-		// we don't need to iterate through the whole path.
-		if (!getBounds().intersects(path.getBounds()))
-			return new CurveLocation[0];
+	public CurveLocation[] getIntersections(PathItem path, double tolerance) {
+		// Only the pairs of curves whose bounds overlap are intersected,
+		// as found through the curve hierarchies of both items.
 		ArrayList<CurveLocation> locations = new ArrayList<CurveLocation>();
-		List<Curve> curves1 = getAllCurves(), curves2 = path.getAllCurves();
-		int length1 = curves1.size(), length2 = curves2.size();
-		// Convert curves2 to curve values, as we're looping through them for
-		// each curve in curves1.
-		double[][][] curvesValues2 = new double[length2][][];
-		for (int i = 0; i < length2; i++)
-			curvesValues2[i] = curves2.get(i).getCurveValues();
-		// Now loop through each curve in curves1 and get intersections with
-		// the curves in curves2.
-		for (int i = 0; i < length1; i++) {
-			Curve curve = curves1.get(i);
-			double[][] curveValues = curve.getCurveValues();
-			for (int j = 0; j < length2; j++)
-				Curve.getIntersections(curve, curveValues, curvesValues2[j],
-						locations);
-		}
+		getCurveHierarchy().getIntersections(path.getCurveHierarchy(),
+				tolerance, parallelIntersections, locations);
 		return locations.toArray(new CurveLocation[locations.size()]);
 	}
 
+	public CurveLocation[] getIntersections(PathItem path) {
+		return getIntersections(path, Curve.EPSILON);
+	}
+
+	/**
+	 * Returns the location on the path that is nearest to the specified
+	 * point. {@link CompoundPath} items are supported too.
+	 *
+	 * @param point
+	 * @return the nearest location, or {@code null} if the path has no curves
+	 */
+	public CurveLocation getNearestLocation(Point point) {
+		CurveHierarchy hierarchy = getCurveHierarchy();
+		double[] result = new double[4];
+		if (hierarchy.getNearest(point.x, point.y, result, null) < 0)
+			return null;
+		return new CurveLocation(hierarchy.curves[(int) result[0]], result[1],
+				new Point(result[2], result[3]));
+	}
+
+	/**
+	 * Returns the point on the path that is nearest to the specified point.
+	 *
+	 * @param point
+	 * @return the nearest point, or {@code null} if the path has no curves
+	 */
+	public Point getNearestPoint(Point point) {
+		double[] result = new double[4];
+		if (getCurveHierarchy().getNearest(point.x, point.y, result, null) < 0)
+			return null;
+		return new Point(result[2], result[3]);
+	}
+
+	/**
+	 * Returns the locations on the path that are nearest to each of the
+	 * specified points.
+	 *
+	 * @param points
+	 * @return an array with the nearest location for each of the points
+	 */
+	public CurveLocation[] getNearestLocations(Point[] points) {
+		CurveHierarchy hierarchy = getCurveHierarchy();
+		CurveLocation[] locations = new CurveLocation[points.length];
+		double[] result = new double[4];
+		int[] stack = hierarchy.createStack();
+		for (int i = 0; i < points.length; i++) {
+			Point point = points[i];
+			if (hierarchy.getNearest(point.x, point.y, result, stack) < 0)
+				break;
+			locations[i] = new CurveLocation(hierarchy.curves[(int) result[0]],
+					result[1], new Point(result[2], result[3]));
+		}
+		return locations;
+	}
+
+	/**
+	 * Returns the points on the path that are nearest to each of the
+	 * specified points.
+	 *
+	 * @param points
+	 * @return an array with the nearest point for each of the points
+	 */
+	public Point[] getNearestPoints(Point[] points) {
+		CurveHierarchy hierarchy = getCurveHierarchy();
+		Point[] nearest = new Point[points.length];
+		double[] result = new double[4];
+		int[] stack = hierarchy.createStack();
+		for (int i = 0; i < points.length; i++) {
+			Point point = points[i];
+			if (hierarchy.getNearest(point.x, point.y, result, stack) < 0)
+				break;
+			nearest[i] = new Point(result[2], result[3]);
+		}
+		return nearest;
+	}
+
+	/**
+	 * Finds the points on the path that are nearest to the points stored in
+	 * the coordinate array as pairs of x and y values, without creating any
+	 * objects if a result array of sufficient length is passed. The nearest
+	 * points are stored in the same way in the result array.
+	 *
+	 * @param coords the coordinates of the points, alternating x and y
+	 * @param result the array to receive the nearest points, or {@code null}
+	 * @return the array with the nearest points, or {@code null} if the path
+	 *         has no curves
+	 * @jshide
+	 */
+	public double[] getNearestPoints(double[] coords, double[] result) {
+		return getNearestPoints(coords, 0, coords.length / 2, result);
+	}
+
+	/**
+	 * Finds the points on the path that are nearest to the points in the
+	 * given range of the coordinate array, e.g. for the coordinates of a
+	 * {@link PointBuffer}, which may be longer than needed for its points.
+	 *
+	 * @param coords the coordinates of the points, alternating x and y
+	 * @param offset the index of the first value to be processed
+	 * @param count the amount of points to process
+	 * @param result the array to receive the nearest points from index 0 on,
+	 *        or {@code null}
+	 * @return the array with the nearest points, or {@code null} if the path
+	 *         has no curves
+	 * @see #getNearestPoints(double[], double[])
+	 * @jshide
+	 */
+	public double[] getNearestPoints(double[] coords, int offset, int count,
+			double[] result) {
+		if (result == null || result.length < count * 2)
+			result = new double[count * 2];
+		CurveHierarchy hierarchy = getCurveHierarchy();
+		if (hierarchy.count == 0)
+			return null;
+		double[] nearest = new double[4];
+		int[] stack = hierarchy.createStack();
+		for (int i = 0; i < count; i++) {
+			int j = offset + i * 2;
+			hierarchy.getNearest(coords[j], coords[j + 1], nearest, stack);
+			result[i * 2] = nearest[2];
+			result[i * 2 + 1] = nearest[3];
+		}
+		return result;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public static boolean getParallelIntersections() {
+		return parallelIntersections;
+	}
+
+	/**
+	 * Controls whether {@link #getIntersections(PathItem)} intersects large
+	 * amounts of curve pairs on multiple threads. The results are the same
+	 * and in the same order either way.
+	 * 
+	 * @jshide
+	 */
+	public static void setParallelIntersections(boolean parallel) {
+		parallelIntersections = parallel;
+	}
+
 	/**
 	 * Draws the path's content into a Graphics2D object. Useful for
 	 * conversions.
@@ -0,0 +1,72 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+import com.scratchdisk.list.List;
+
+/**
+ * Remembers a list of paths and their geometry versions, so structures that
+ * are derived from their geometry can tell when they need to be rebuilt.
+ * 
+ * @author agent
+ */
+class PathVersions {
+	private Path[] paths;
+	private int[] versions;
+
+	protected PathVersions(List<Path> paths) {
+		int count = paths.size();
+		this.paths = new Path[count];
+		versions = new int[count];
+		for (int i = 0; i < count; i++) {
+			Path path = paths.get(i);
+			this.paths[i] = path;
+			versions[i] = path.getSegments().geometryVersion;
+		}
+	}
+
+	protected PathVersions() {
+		paths = new Path[0];
+		versions = new int[0];
+	}
+
+	/**
+	 * Checks whether none of the remembered paths has changed since.
+	 */
+	protected boolean isValid() {
+		for (int i = 0; i < paths.length; i++) {
+			if (paths[i].getSegments().geometryVersion != versions[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the given paths are still the same as the remembered
+	 * ones, and none of them has changed since.
+	 */
+	protected boolean isValid(List<Path> paths) {
+		int count = paths.size();
+		if (count != this.paths.length)
+			return false;
+		for (int i = 0; i < count; i++) {
+			Path path = paths.get(i);
+			if (path != this.paths[i]
+					|| path.getSegments().geometryVersion != versions[i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -489,6 +489,124 @@ public class Point implements ChangeEmitter {
 	public Point transform(Matrix matrix) {
 		return matrix.transform(this);
 	}
+
+	/*
+	 * Variants of the arithmetic methods that store their results in a
+	 * given point instead of creating a new one, for Java code that performs
+	 * many operations in a row. The point receiving the result can also be
+	 * the point itself, or the point passed as an argument.
+	 */
+
+	/**
+	 * Stores the addition of the supplied x and y values to the point in
+	 * out.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point addTo(double x, double y, Point out) {
+		out.set(this.x + x, this.y + y);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Point addTo(Point point, Point out) {
+		return addTo(point.x, point.y, out);
+	}
+
+	/**
+	 * Stores the subtraction of the supplied x and y values from the point in
+	 * out.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point subtractTo(double x, double y, Point out) {
+		out.set(this.x - x, this.y - y);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Point subtractTo(Point point, Point out) {
+		return subtractTo(point.x, point.y, out);
+	}
+
+	/**
+	 * Stores the multiplication of the point with the supplied x and y
+	 * values in out.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point multiplyTo(double x, double y, Point out) {
+		out.set(this.x * x, this.y * y);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Point multiplyTo(Point point, Point out) {
+		return multiplyTo(point.x, point.y, out);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Point multiplyTo(double value, Point out) {
+		return multiplyTo(value, value, out);
+	}
+
+	/**
+	 * Stores the point scaled to the given length in out, see
+	 * {@link #normalize(double)}.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point normalizeTo(double length, Point out) {
+		double len = getLength();
+		// Prevent division by 0
+		double scale = len != 0 ? length / len : 0;
+		Double angle = this.angle;
+		out.set(x * scale, y * scale);
+		// Preserve angle.
+		out.angle = angle;
+		return out;
+	}
+
+	/**
+	 * Stores the point rotated by the given angle in out, see
+	 * {@link #rotate(double)}.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point rotateTo(double angle, Point out) {
+		if (ScriptographerEngine.anglesInDegrees)
+			angle = angle * Math.PI / 180.0;
+		double s = Math.sin(angle);
+		double c = Math.cos(angle);
+		out.set(
+				x * c - y * s,
+				y * c + x * s
+		);
+		return out;
+	}
+
+	/**
+	 * Stores the point transformed by the matrix in out.
+	 * 
+	 * @return out
+	 * @jshide
+	 */
+	public Point transformTo(Matrix matrix, Point out) {
+		return matrix.transform(this, out);
+	}
 	
 	/**
 	 * Returns the distance between the point and another point.
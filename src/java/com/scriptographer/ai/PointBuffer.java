@@ -0,0 +1,189 @@
+/*
+ * Scriptographer
+ *
+ * This file is part of Scriptographer, a Scripting Plugin for Adobe Illustrator
+ * http://scriptographer.org/
+ *
+ * Copyright (c) 2002-2010, Juerg Lehni
+ * http://scratchdisk.com/
+ *
+ * All rights reserved. See LICENSE file for details.
+ *
+ * File created on Oct 18, 2026.
+ */
+
+package com.scriptographer.ai;
+
+/**
+ * PointBuffer stores a growing list of points as pairs of x and y values in
+ * one primitive array, instead of as {@link Point} objects. It is meant to be
+ * reused across many operations, e.g. by calling {@link #clear()} rather than
+ * creating a new buffer.
+ *
+ * The coordinates can be passed directly to the methods that work on ranges
+ * of coordinate arrays, such as {@link Matrix#transform(double[], int,
+ * double[], int, int)}, {@link PathItem#contains(double[], int, int,
+ * boolean[])} and {@link PathItem#getNearestPoints(double[], int, int,
+ * double[])}, with {@link #size()} as the amount of points. As the array may
+ * be longer than needed, it cannot be passed to the variants that process
+ * the whole array, use {@link #toCoordinates()} for these.
+ *
+ * @author agent
+ *
+ * @jshide
+ */
+public class PointBuffer {
+	private double[] coords;
+	private int size = 0;
+
+	public PointBuffer(int capacity) {
+		coords = new double[Math.max(capacity, 1) * 2];
+	}
+
+	public PointBuffer() {
+		this(16);
+	}
+
+	/**
+	 * The amount of points in the buffer.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all points, keeping the allocated storage.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Makes sure the buffer can hold the given amount of points without
+	 * growing.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity * 2 > coords.length) {
+			double[] tmp = new double[Math.max(capacity * 2, coords.length * 2)];
+			System.arraycopy(coords, 0, tmp, 0, size * 2);
+			coords = tmp;
+		}
+	}
+
+	public void add(double x, double y) {
+		ensureCapacity(size + 1);
+		int index = size++ * 2;
+		coords[index] = x;
+		coords[index + 1] = y;
+	}
+
+	public void add(Point point) {
+		add(point.x, point.y);
+	}
+
+	public void set(int index, double x, double y) {
+		checkIndex(index);
+		index *= 2;
+		coords[index] = x;
+		coords[index + 1] = y;
+	}
+
+	public void set(int index, Point point) {
+		set(index, point.x, point.y);
+	}
+
+	public double getX(int index) {
+		checkIndex(index);
+		return coords[index * 2];
+	}
+
+	public double getY(int index) {
+		checkIndex(index);
+		return coords[index * 2 + 1];
+	}
+
+	/**
+	 * Stores the point at the given index in out, without creating a new
+	 * point.
+	 *
+	 * @return out
+	 */
+	public Point get(int index, Point out) {
+		checkIndex(index);
+		index *= 2;
+		out.set(coords[index], coords[index + 1]);
+		return out;
+	}
+
+	public Point get(int index) {
+		return get(index, new Point());
+	}
+
+	/**
+	 * The coordinates of all points, alternating x and y. This is the
+	 * buffer's own array, so it may be longer than needed for the points,
+	 * only the first {@code size() * 2} values are valid. It is replaced when
+	 * the buffer grows.
+	 */
+	public double[] getCoordinates() {
+		return coords;
+	}
+
+	/**
+	 * Returns a copy of the coordinates of all points, alternating x and y,
+	 * with exactly {@code size() * 2} values.
+	 */
+	public double[] toCoordinates() {
+		double[] values = new double[size * 2];
+		System.arraycopy(coords, 0, values, 0, values.length);
+		return values;
+	}
+
+	/**
+	 * Transforms all points in place.
+	 */
+	public void transform(Matrix matrix) {
+		matrix.transform(coords, 0, coords, 0, size);
+	}
+
+	/**
+	 * Stores the bounds of all points in out.
+	 *
+	 * @return out, or {@code null} if the buffer is empty
+	 */
+	public Rectangle getBounds(Rectangle out) {
+		if (size == 0)
+			return null;
+		double minX = coords[0], minY = coords[1], maxX = minX, maxY = minY;
+		for (int i = 2, l = size * 2; i < l; i += 2) {
+			double x = coords[i], y = coords[i + 1];
+			if (x < minX)
+				minX = x;
+			else if (x > maxX)
+				maxX = x;
+			if (y < minY)
+				minY = y;
+			else if (y > maxY)
+				maxY = y;
+		}
+		out.set(minX, minY, maxX - minX, maxY - minY);
+		return out;
+	}
+
+	public Point[] toArray() {
+		Point[] points = new Point[size];
+		for (int i = 0; i < size; i++)
+			points[i] = new Point(coords[i * 2], coords[i * 2 + 1]);
+		return points;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+	}
+}
@@ -551,6 +551,61 @@ public class Rectangle implements ChangeEmitter, ChangeReceiver {
 		return include(point.x, point.y);
 	}
 
+	/*
+	 * Variants of intersect(), unite() and include() that store their
+	 * results in a given rectangle instead of creating a new one. The
+	 * rectangle receiving the result can also be the rectangle itself.
+	 */
+
+	/**
+	 * @see #intersect(Rectangle)
+	 * @return out
+	 * @jshide
+	 */
+	public Rectangle intersectTo(Rectangle rect, Rectangle out) {
+		double x1 = Math.max(x, rect.x);
+		double y1 = Math.max(y, rect.y);
+		double x2 = Math.min(x + width, rect.x + rect.width);
+		double y2 = Math.min(y + height, rect.y + rect.height);
+		out.set(x1, y1, x2 - x1, y2 - y1);
+		return out;
+	}
+
+	/**
+	 * @see #unite(Rectangle)
+	 * @return out
+	 * @jshide
+	 */
+	public Rectangle uniteTo(Rectangle rect, Rectangle out) {
+		double x1 = Math.min(x, rect.x);
+		double y1 = Math.min(y, rect.y);
+		double x2 = Math.max(x + width, rect.x + rect.width);
+		double y2 = Math.max(y + height, rect.y + rect.height);
+		out.set(x1, y1, x2 - x1, y2 - y1);
+		return out;
+	}
+
+	/**
+	 * @see #include(double, double)
+	 * @return out
+	 * @jshide
+	 */
+	public Rectangle includeTo(double px, double py, Rectangle out) {
+		double x1 = Math.min(x, px);
+		double y1 = Math.min(y, py);
+		double x2 = Math.max(x + width, px);
+		double y2 = Math.max(y + height, py);
+		out.set(x1, y1, x2 - x1, y2 - y1);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Rectangle includeTo(Point point, Rectangle out) {
+		return includeTo(point.x, point.y, out);
+	}
+
 	/**
 	 * @deprecated
 	 */
@@ -242,6 +242,24 @@ public class Segment implements Committable, ChangeReceiver {
 		corner = values[valueIndex + 6] != 0;
 	}
 
+	/**
+	 * Sets the values from the compact storage in SegmentList, which stores
+	 * the handles as absolute positions, just like the native segment struct.
+	 * 
+	 * Warning: This does not call markDirty() either.
+	 */
+	protected void setValues(double[] values, int valueIndex, boolean corner) {
+		double x = values[valueIndex];
+		double y = values[valueIndex + 1];
+		point.x = x;
+		point.y = y;
+		handleIn.x = values[valueIndex + 2] - x;
+		handleIn.y = values[valueIndex + 3] - y;
+		handleOut.x = values[valueIndex + 4] - x;
+		handleOut.y = values[valueIndex + 5] - y;
+		this.corner = corner;
+	}
+
 	protected void getValues(float[] values, int valueIndex) {
 		double x = point.x;
 		double y = point.y;
@@ -305,11 +323,15 @@ public class Segment implements Committable, ChangeReceiver {
 	}
 
 	protected void markDirty(int dirty) {
+		// Changed points invalidate geometry cached for the list, even if the
+		// segment was marked dirty already.
+		if ((dirty & DIRTY_POINTS) != 0 && segments != null)
+			segments.geometryVersion++;
 		// Only mark it as dirty if it's attached to a path already and
 		// if the given dirty flags are not already set
 		if ((this.dirty & dirty) != dirty && segments != null
 				&& segments.path != null) {
-			CommitManager.markDirty(segments.path, this);
+			segments.markDirty(this);
 			this.dirty |= dirty;
 		}
 	}
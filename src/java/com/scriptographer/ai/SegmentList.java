@@ -14,7 +14,14 @@
 
 package com.scriptographer.ai;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
 import com.scratchdisk.list.ReadOnlyList;
+import com.scriptographer.CommitManager;
+import com.scriptographer.Committable;
 import com.scriptographer.ScriptographerException;
 import com.scriptographer.list.AbstractFetchList;
 
@@ -23,12 +30,22 @@ import com.scriptographer.list.AbstractFetchList;
  * 
  * @jshide
  */
-public class SegmentList extends AbstractFetchList<Segment> {
+public class SegmentList extends AbstractFetchList<Segment>
+		implements Committable {
 	protected Path path;
 	protected CurveList curves = null;
 
 	private int lengthVersion = -1;
 
+	/**
+	 * Increased each time the geometry described by this list changes, be it
+	 * natively (detected through the path's version in {@link #update()}) or
+	 * through modifications from the Java side, which do not change the
+	 * path's version until they are committed. Cached geometry such as the
+	 * arc length table in {@link Path} compares against this.
+	 */
+	protected int geometryVersion = 0;
+
 	// How many float values are stored in a segment:
 	// use this ugly but fast hack: the AIPathSegment represents roughly an
 	// array of 6 floats (for the 3 AIRealPoints p, in, out)
@@ -41,6 +58,61 @@ public class SegmentList extends AbstractFetchList<Segment> {
 	// that's all we want in the java environment:
 	protected static final int VALUES_PER_SEGMENT = 7;
 
+	// The compact storage of fetched segments, used instead of creating a
+	// Segment object for each fetched segment. Segments are only created
+	// from it when they are actually requested through get().
+	// Six doubles per segment for the point and the absolute handle
+	// positions, in the same order as natively:
+	private double[] storeValues = null;
+	// One byte per segment for the corner flag, and whether the values are
+	// fetched for the path version in storeVersion.
+	private byte[] storeStates = null;
+	private int storeVersion = -1;
+	// Whether transform() modified the stored values, which then need to be
+	// committed as one run, see commitStore().
+	private boolean storeDirty = false;
+
+	private static final byte
+		STORE_FETCHED = 1,
+		STORE_CORNER = 2;
+
+	private static boolean compactStorage = false;
+
+	// The amount of segments before the appended ones that smoothEnd()
+	// solves again. Their influence on the handles before is below 10e-13.
+	private static final int SMOOTH_WINDOW = 24;
+
+	// The window of segments fetched around a segment requested through
+	// get() that is not fetched yet. It grows exponentially as long as the
+	// segments are requested in sequence, in either direction, and falls
+	// back to the minimum size for random access.
+	private static final int MIN_FETCH_WINDOW = 4;
+	private static final int MAX_FETCH_WINDOW = 4096;
+	private int fetchWindow = MIN_FETCH_WINDOW;
+	private int fetchDirection = 0;
+	private int lastIndex = -1;
+
+	// Statistics about the native fetching, across all lists
+	private static long fetchCount = 0;
+	private static long fetchedSegmentCount = 0;
+
+	// The modified segments that need to be committed. They are committed
+	// together so that runs of neighboring segments can be set natively in
+	// one go.
+	private ArrayList<Segment> dirtySegments = null;
+
+	// Statistics about the native committing, across all lists
+	private static long commitCount = 0;
+	private static long commitRunCount = 0;
+	private static long committedSegmentCount = 0;
+
+	private static final Comparator<Segment> indexComparator =
+			new Comparator<Segment>() {
+		public int compare(Segment segment1, Segment segment2) {
+			return segment1.index - segment2.index;
+		}
+	};
+
 	public SegmentList() {
 	}
 
@@ -75,6 +147,7 @@ public class SegmentList extends AbstractFetchList<Segment> {
 				}
 				list.setSize(newSize);
 				size = newSize;
+				invalidateStore();
 				if (curves != null)
 					curves.updateSize();
 			}
@@ -88,8 +161,10 @@ public class SegmentList extends AbstractFetchList<Segment> {
 	 * Only called from Path.getSegmentList()
 	 */
 	protected void update() {
-		if (path != null && path.needsUpdate(lengthVersion))
+		if (path != null && path.needsUpdate(lengthVersion)) {
+			geometryVersion++;
 			updateSize(-1);
+		}
 	}
 
 	protected static native void nativeGet(int handle, int index, int count,
@@ -129,20 +204,18 @@ public class SegmentList extends AbstractFetchList<Segment> {
 			// regardless of the version, and then compare with that each time.
 			boolean needsUpdate = path.needsUpdate();
 			int pathVersion = path.version;
-			// if all are out of maxVersion or only one segment is fetched, no
-			// scanning for valid segments is needed:
-			int fetchCount = toIndex - fromIndex;
+			boolean compact = compactStorage;
+			if (compact)
+				updateStore(needsUpdate, pathVersion);
 
 			int start = fromIndex, end;
 
 			float[] values = null;
 			while (true) {
 				// Skip the ones that are already fetched:
-				Segment segment;
-				while (start < toIndex && (segment = list.get(start)) != null
-						&& (!needsUpdate && segment.version == pathVersion)) {
+				while (start < toIndex
+						&& isFetched(start, compact, needsUpdate, pathVersion))
 					start++;
-				}
 
 				if (start == toIndex) // all fetched, jump out
 					break;
@@ -151,30 +224,39 @@ public class SegmentList extends AbstractFetchList<Segment> {
 				// fetched:
 				end = start + 1;
 
-				while (end < toIndex && ((segment = list.get(start)) == null
-						|| needsUpdate || segment.version != pathVersion)) {
+				while (end < toIndex
+						&& !isFetched(end, compact, needsUpdate, pathVersion))
 					end++;
-				}
 
 				// fetch these segmentValues and set the segments:
 				int count = end - start;
-				if (count > 0) {
-					fetchCount -= count;
-					int length =  count * VALUES_PER_SEGMENT;
-					if (values == null || values.length < length)
-						values = new float[length];
-					nativeGet(path.handle, start, count, values);
-					int valueIndex = 0;
-					for (int i = start; i < end; i++) {
-						segment = list.get(i);
-						if (segment == null) {
-							segment = new Segment(this, i);
-							list.set(i, segment);
-						}
+				int length =  count * VALUES_PER_SEGMENT;
+				if (values == null || values.length < length)
+					values = new float[length];
+				nativeGet(path.handle, start, count, values);
+				fetchCount++;
+				fetchedSegmentCount += count;
+				int valueIndex = 0;
+				for (int i = start; i < end; i++) {
+					Segment segment = list.get(i);
+					if (compact) {
+						// Only store the values, but keep segments that
+						// were already created up to date.
+						int storeIndex = i * 6;
+						for (int j = 0; j < 6; j++)
+							storeValues[storeIndex + j] = values[valueIndex + j];
+						storeStates[i] = values[valueIndex + 6] != 0
+								? STORE_FETCHED | STORE_CORNER
+								: STORE_FETCHED;
+					} else if (segment == null) {
+						segment = new Segment(this, i);
+						list.set(i, segment);
+					}
+					if (segment != null) {
 						segment.setValues(values, valueIndex);
 						segment.version = pathVersion;
-						valueIndex += VALUES_PER_SEGMENT;
 					}
+					valueIndex += VALUES_PER_SEGMENT;
 				}
 
 				// are we at the end? if so, jump out
@@ -187,18 +269,423 @@ public class SegmentList extends AbstractFetchList<Segment> {
 		}
 	}
 
-	public Segment get(int index) {
-		// as fetching doesn't cost so much but calling JNI functions does,
-		// fetch a few elements in the neighborhood at a time:
-		int fromIndex = index - 2;
-		if (fromIndex < 0)
-			fromIndex = 0;
-
-		int toIndex = fromIndex + 4;
-		if (toIndex > size)
-			toIndex = size;
+	private boolean isFetched(int index, boolean compact, boolean needsUpdate,
+			int pathVersion) {
+		if (compact && (storeStates[index] & STORE_FETCHED) != 0)
+			return true;
+		Segment segment = list.get(index);
+		return segment != null && !needsUpdate
+				&& segment.version == pathVersion;
+	}
+
+	/**
+	 * Makes sure the compact storage can hold all segments and forgets all
+	 * stored values if they are not from the current path version.
+	 */
+	private void updateStore(boolean needsUpdate, int pathVersion) {
+		if (storeStates == null || storeStates.length < size) {
+			int capacity = Math.max(size, 8);
+			storeValues = new double[capacity * 6];
+			storeStates = new byte[capacity];
+		} else if (needsUpdate || storeVersion != pathVersion) {
+			Arrays.fill(storeStates, (byte) 0);
+		}
+		storeVersion = pathVersion;
+	}
+
+	/**
+	 * Forgets the stored values, e.g. when segments are inserted or removed
+	 * and the indices change.
+	 */
+	private void invalidateStore() {
+		if (storeStates != null && storeVersion != -1) {
+			Arrays.fill(storeStates, (byte) 0);
+			storeVersion = -1;
+		}
+	}
+
+	/**
+	 * Returns the values of a series of segments, six values per segment for
+	 * the point and the absolute handle positions, in the order point, handle
+	 * in and handle out. Segments that were not requested through get()
+	 * before are read straight from the compact storage, without creating
+	 * Segment objects for them.
+	 * 
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param values the array to receive the values, or {@code null}
+	 * @return the array with the values
+	 */
+	protected double[] getValues(int fromIndex, int toIndex, double[] values) {
+		int length = (toIndex - fromIndex) * 6;
+		if (values == null || values.length < length)
+			values = new double[length];
 		fetch(fromIndex, toIndex);
-		return list.get(index);
+		boolean compact = compactStorage && path != null;
+		for (int i = fromIndex, index = 0; i < toIndex; i++, index += 6) {
+			Segment segment = list.get(i);
+			// Segments that are modified but not committed yet, and segments
+			// that are up to date take precedence over the stored values.
+			if (!compact || segment != null
+					&& (segment.version == storeVersion
+					|| segment.dirty != Segment.DIRTY_NONE)) {
+				double x = segment.point.x, y = segment.point.y;
+				values[index] = x;
+				values[index + 1] = y;
+				values[index + 2] = segment.handleIn.x + x;
+				values[index + 3] = segment.handleIn.y + y;
+				values[index + 4] = segment.handleOut.x + x;
+				values[index + 5] = segment.handleOut.y + y;
+			} else {
+				System.arraycopy(storeValues, i * 6, values, index, 6);
+			}
+		}
+		return values;
+	}
+
+	public Segment get(int index) {
+		// Detect the access pattern
+		if (index == lastIndex + 1) {
+			fetchDirection = 1;
+		} else if (index == lastIndex - 1) {
+			fetchDirection = -1;
+		} else if (index != lastIndex) {
+			fetchDirection = 0;
+			fetchWindow = MIN_FETCH_WINDOW;
+		}
+		lastIndex = index;
+		if (path != null && !isFetched(index)) {
+			// As fetching doesn't cost so much but calling JNI functions
+			// does, fetch the segments that are likely to be requested next
+			// along with this one: Ahead in the direction of sequential
+			// access, and a few in the neighborhood otherwise.
+			int fromIndex, toIndex;
+			if (fetchDirection > 0) {
+				fromIndex = index;
+				toIndex = index + fetchWindow;
+			} else if (fetchDirection < 0) {
+				fromIndex = index + 1 - fetchWindow;
+				toIndex = index + 1;
+			} else {
+				fromIndex = index - MIN_FETCH_WINDOW / 2;
+				toIndex = fromIndex + MIN_FETCH_WINDOW;
+			}
+			if (fromIndex < 0)
+				fromIndex = 0;
+			if (toIndex > size)
+				toIndex = size;
+			fetch(fromIndex, toIndex);
+			if (fetchDirection != 0 && fetchWindow < MAX_FETCH_WINDOW)
+				fetchWindow *= 2;
+		}
+		Segment segment = list.get(index);
+		if (compactStorage && storeStates != null
+				&& index < storeStates.length && (segment == null
+				|| segment.version != storeVersion
+				&& segment.dirty == Segment.DIRTY_NONE)
+				&& (storeStates[index] & STORE_FETCHED) != 0) {
+			// Create the segment from the compact storage, or bring the
+			// existing one up to date.
+			if (segment == null) {
+				segment = new Segment(this, index);
+				list.set(index, segment);
+			}
+			segment.setValues(storeValues, index * 6,
+					(storeStates[index] & STORE_CORNER) != 0);
+			segment.version = storeVersion;
+		}
+		return segment;
+	}
+
+	/**
+	 * Checks if the segment at the given index can be returned without
+	 * fetching it first.
+	 */
+	private boolean isFetched(int index) {
+		boolean needsUpdate = path.needsUpdate();
+		int pathVersion = path.version;
+		if (compactStorage && !needsUpdate && storeVersion == pathVersion
+				&& index < storeStates.length
+				&& (storeStates[index] & STORE_FETCHED) != 0)
+			return true;
+		Segment segment = list.get(index);
+		return segment != null && !needsUpdate
+				&& segment.version == pathVersion;
+	}
+
+	/**
+	 * Transforms all segments in place by the given matrix: The points
+	 * receive the full transformation, and the handles, which are relative
+	 * to them, the delta transformation without translation. The matrix is
+	 * applied to all coordinates in two calls, and the modified segments are
+	 * then committed together in runs, see {@link #commit(boolean)}. With
+	 * compact storage, the stored values are transformed instead, see
+	 * {@link #transformStore(Matrix)}.
+	 */
+	public void transform(Matrix matrix) {
+		int size = size();
+		if (size == 0)
+			return;
+		if (path != null)
+			fetch();
+		if (compactStorage && path != null) {
+			transformStore(matrix);
+			return;
+		}
+		double[] points = new double[size * 2];
+		double[] handles = new double[size * 4];
+		for (int i = 0; i < size; i++) {
+			Segment segment = get(i);
+			int index = i * 2;
+			points[index] = segment.point.x;
+			points[index + 1] = segment.point.y;
+			index = i * 4;
+			handles[index] = segment.handleIn.x;
+			handles[index + 1] = segment.handleIn.y;
+			handles[index + 2] = segment.handleOut.x;
+			handles[index + 3] = segment.handleOut.y;
+		}
+		matrix.transform(points, 0, points, 0, size);
+		matrix.deltaTransform(handles, 0, handles, 0, size * 2);
+		for (int i = 0; i < size; i++) {
+			// Affine transformations keep colinear handles colinear, so the
+			// corner flag does not change.
+			Segment segment = list.get(i);
+			int index = i * 2;
+			segment.point.x = points[index];
+			segment.point.y = points[index + 1];
+			index = i * 4;
+			segment.handleIn.x = handles[index];
+			segment.handleIn.y = handles[index + 1];
+			segment.handleOut.x = handles[index + 2];
+			segment.handleOut.y = handles[index + 3];
+			segment.markDirty(Segment.DIRTY_POINTS);
+		}
+	}
+
+	/**
+	 * Transforms the values in the compact storage directly, as transform()
+	 * would otherwise create Segment objects for all of them. The handles are
+	 * stored as absolute positions there, so all values receive the full
+	 * transformation. Segments that were created already are updated from
+	 * the result, and the whole list is committed as one run.
+	 */
+	private void transformStore(Matrix matrix) {
+		// Modified segments take precedence over the stored values, so
+		// gather these in the storage first.
+		getValues(0, size, storeValues);
+		matrix.transform(storeValues, 0, storeValues, 0, size * 3);
+		for (int i = 0; i < size; i++) {
+			Segment segment = list.get(i);
+			if (segment != null) {
+				segment.setValues(storeValues, i * 6, segment.corner);
+				segment.version = storeVersion;
+				storeStates[i] = segment.corner
+						? STORE_FETCHED | STORE_CORNER
+						: STORE_FETCHED;
+			}
+		}
+		geometryVersion++;
+		if (!storeDirty) {
+			if (dirtySegments == null || dirtySegments.isEmpty())
+				CommitManager.markDirty(path, this);
+			storeDirty = true;
+		}
+	}
+
+	/**
+	 * Commits the values in the compact storage that were modified by
+	 * transform() through one native call. This needs to happen before
+	 * segments are inserted or removed, as the indices change then.
+	 */
+	private void commitStore() {
+		if (!storeDirty)
+			return;
+		storeDirty = false;
+		path.checkValid();
+		float[] values = new float[size * VALUES_PER_SEGMENT];
+		for (int i = 0, index = 0, valueIndex = 0; i < size; i++,
+				index += 6, valueIndex += VALUES_PER_SEGMENT) {
+			for (int j = 0; j < 6; j++)
+				values[valueIndex + j] = (float) storeValues[index + j];
+			values[valueIndex + 6] =
+					(storeStates[i] & STORE_CORNER) != 0 ? 1f : 0f;
+		}
+		nativeSet(path.handle, path.document.handle, 0, size, values);
+		path.setModified();
+		commitCount++;
+		commitRunCount++;
+		committedSegmentCount += size;
+	}
+
+	/**
+	 * Fetches all segments of the path with as few native calls as
+	 * possible, for code that is going to access all of them.
+	 */
+	public void prefetchAll() {
+		fetch();
+	}
+
+	/**
+	 * Returns the number of native calls made to fetch segments since the
+	 * statistics were last reset.
+	 * 
+	 * @jshide
+	 */
+	public static long getFetchCount() {
+		return fetchCount;
+	}
+
+	/**
+	 * Returns the number of segments fetched through native calls since the
+	 * statistics were last reset.
+	 * 
+	 * @jshide
+	 */
+	public static long getFetchedSegmentCount() {
+		return fetchedSegmentCount;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public static void resetStatistics() {
+		fetchCount = 0;
+		fetchedSegmentCount = 0;
+		commitCount = 0;
+		commitRunCount = 0;
+		committedSegmentCount = 0;
+	}
+
+	/**
+	 * Returns the number of times modified segments of a list were
+	 * committed since the statistics were last reset.
+	 * 
+	 * @jshide
+	 */
+	public static long getCommitCount() {
+		return commitCount;
+	}
+
+	/**
+	 * Returns the number of native calls made to commit runs of neighboring
+	 * modified segments since the statistics were last reset.
+	 * 
+	 * @jshide
+	 */
+	public static long getCommitRunCount() {
+		return commitRunCount;
+	}
+
+	/**
+	 * Returns the number of modified segments committed since the statistics
+	 * were last reset.
+	 * 
+	 * @jshide
+	 */
+	public static long getCommittedSegmentCount() {
+		return committedSegmentCount;
+	}
+
+	/**
+	 * Called by Segment#markDirty(), collects the segment to be committed
+	 * along with the other modified ones of this list.
+	 */
+	protected void markDirty(Segment segment) {
+		if (dirtySegments == null)
+			dirtySegments = new ArrayList<Segment>();
+		if (dirtySegments.isEmpty() && !storeDirty)
+			CommitManager.markDirty(path, this);
+		dirtySegments.add(segment);
+	}
+
+	/**
+	 * Commits all modified segments, setting the points of runs of
+	 * neighboring segments through one native call each.
+	 * 
+	 * @jshide
+	 */
+	public void commit(boolean endExecution) {
+		commitStore();
+		if (dirtySegments == null || dirtySegments.isEmpty())
+			return;
+		if (path != null) {
+			path.checkValid();
+			commitCount++;
+			// Sort by index, so neighbors follow each other
+			Collections.sort(dirtySegments, indexComparator);
+			float[] values = null;
+			int count = dirtySegments.size();
+			int start = 0;
+			while (start < count) {
+				Segment segment = dirtySegments.get(start);
+				// Skip segments that were removed in the meantime, or already
+				// committed as they were added twice.
+				if (segment.segments != this
+						|| segment.dirty == Segment.DIRTY_NONE) {
+					start++;
+					continue;
+				}
+				int end = start + 1;
+				if ((segment.dirty & Segment.DIRTY_POINTS) != 0) {
+					int index = segment.index;
+					while (end < count) {
+						Segment next = dirtySegments.get(end);
+						if (next.segments != this || next.index != ++index
+								|| (next.dirty & Segment.DIRTY_POINTS) == 0)
+							break;
+						end++;
+					}
+				}
+				int runCount = end - start;
+				if (runCount == 1) {
+					segment.commit(endExecution);
+				} else {
+					int length = runCount * VALUES_PER_SEGMENT;
+					if (values == null || values.length < length)
+						values = new float[length];
+					for (int i = start, valueIndex = 0; i < end; i++,
+							valueIndex += VALUES_PER_SEGMENT)
+						dirtySegments.get(i).getValues(values, valueIndex);
+					nativeSet(path.handle, path.document.handle,
+							segment.index, runCount, values);
+					for (int i = start; i < end; i++) {
+						Segment next = dirtySegments.get(i);
+						if ((next.dirty & Segment.DIRTY_SELECTION) != 0)
+							nativeSetSelectionState(path.handle,
+									path.document.handle, next.index,
+									next.selectionState);
+						next.dirty = Segment.DIRTY_NONE;
+						// Update to current path version after commit.
+						next.version = path.version;
+					}
+					path.setModified();
+				}
+				commitRunCount++;
+				committedSegmentCount += runCount;
+				start = end;
+			}
+		}
+		dirtySegments.clear();
+	}
+
+	/**
+	 * Controls whether fetched segments are kept in a compact storage of
+	 * primitive values, creating Segment objects only when they are
+	 * requested, rather than creating them for all fetched segments.
+	 * This reduces memory use for paths with many segments a lot.
+	 * 
+	 * @jshide
+	 */
+	public static boolean getCompactStorage() {
+		return compactStorage;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public static void setCompactStorage(boolean compact) {
+		compactStorage = compact;
 	}
 
 	public Segment add(int index, Segment segment) {
@@ -215,10 +702,13 @@ public class SegmentList extends AbstractFetchList<Segment> {
 		segment.segments = this;
 		segment.index = index;
 		// And add to illustrator as well
+		commitStore();
 		segment.insert();
 
 		// Increase size
 		size++;
+		geometryVersion++;
+		invalidateStore();
 		if (curves != null)
 			curves.updateSize();
 		
@@ -283,11 +773,14 @@ public class SegmentList extends AbstractFetchList<Segment> {
 
 		// and add the segments to illustrator as well
 		if (values != null && addCount > 0) {
+			commitStore();
 			SegmentList.nativeInsert(path.handle, path.document.handle, index,
 					addCount, values);
 
 			// update size
 			size += addCount;
+			geometryVersion++;
+			invalidateStore();
 			if (curves != null)
 				curves.updateSize();
 
@@ -304,6 +797,29 @@ public class SegmentList extends AbstractFetchList<Segment> {
 		return false;
 	}
 
+	/**
+	 * Adds segments to the end of the list straight from values in the
+	 * native segment layout, through one native call. The segments are only
+	 * created once they are requested.
+	 * 
+	 * @param values the segment values, VALUES_PER_SEGMENT per segment
+	 * @param count the amount of segments
+	 */
+	protected void addValues(float[] values, int count) {
+		if (path != null && count > 0) {
+			path.checkValid();
+			commitStore();
+			nativeInsert(path.handle, path.document.handle, size, count,
+					values);
+			size += count;
+			list.setSize(size);
+			geometryVersion++;
+			invalidateStore();
+			if (curves != null)
+				curves.updateSize();
+		}
+	}
+
 	public boolean addAll(ReadOnlyList<? extends Segment> elements) {
 		return addAll(size, elements);
 	}
@@ -353,12 +869,15 @@ public class SegmentList extends AbstractFetchList<Segment> {
 			}
 			if (path != null) {
 				path.checkValid();
+				commitStore();
 				size = nativeRemove(path.handle, path.document.handle,
 						fromIndex, toIndex - fromIndex);
 			} else {
 				size -= toIndex - fromIndex;
 			}
 			list.remove(fromIndex, toIndex);
+			geometryVersion++;
+			invalidateStore();
 			// Update segment and curve indices of the left entries
 			for (int i = fromIndex; i < size; i++) {
 				Segment seg = list.get(i);
@@ -779,6 +1298,63 @@ public class SegmentList extends AbstractFetchList<Segment> {
 		smooth(false);
 	}
 
+	/**
+	 * Smoothes only the end of an open list of segments, after the given
+	 * amount of segments were appended to a list that was smoothed before,
+	 * e.g. by a drawing tool after each new point.
+	 * 
+	 * The influence of each point on the handles decays quickly along the
+	 * list, by a factor of about 0.27 per segment, so only the system of
+	 * equations for the last segments and a window of segments before them
+	 * needs to be solved again, with the first handle before the window
+	 * taken as it is. The result is the same as that of {@link #smooth()}
+	 * within the limits of double precision.
+	 * 
+	 * @param count the amount of segments appended since the last smoothing
+	 */
+	public void smoothEnd(int count) {
+		int size = size();
+		// The amount of curves, and the first one to be solved again
+		int n = size - 1;
+		int start = n - count - SMOOTH_WINDOW;
+		if (start <= 0) {
+			smooth(false);
+			return;
+		}
+		int m = n - start;
+		// The knots from the one before the window to the end
+		Point[] knots = new Point[m + 2];
+		for (int i = 0; i < m + 2; i++)
+			knots[i] = get(start - 1 + i).point;
+		// The first control point before the window, which is kept
+		Segment previous = get(start - 1);
+		double prevX = previous.point.x + previous.handleOut.x;
+		double prevY = previous.point.y + previous.handleOut.y;
+		// Set up the rows of the equations in the window as in smooth(), but
+		// with the known control point moved to the right hand side.
+		double[] rhs = new double[m];
+		for (int i = 0; i < m - 1; i++)
+			rhs[i] = 4 * knots[i + 1].x + 2 * knots[i + 2].x;
+		rhs[0] -= prevX;
+		rhs[m - 1] = 3 * knots[m].x;
+		double[] x = getFirstControlPoints(rhs, 4.0);
+		for (int i = 0; i < m - 1; i++)
+			rhs[i] = 4 * knots[i + 1].y + 2 * knots[i + 2].y;
+		rhs[0] -= prevY;
+		rhs[m - 1] = 3 * knots[m].y;
+		double[] y = getFirstControlPoints(rhs, 4.0);
+		// Now set the calculated handles
+		for (int i = 0; i < m; i++) {
+			Segment segment = get(start + i);
+			Point point = knots[i + 1];
+			segment.handleIn.set(point.x - x[i], point.y - y[i]);
+			segment.handleOut.set(x[i] - point.x, y[i] - point.y);
+		}
+		Segment last = get(n);
+		Point point = knots[m + 1];
+		last.handleIn.set((x[m - 1] - point.x) / 2, (y[m - 1] - point.y) / 2);
+	}
+
 	/**
 	 * Solves a tri-diagonal system for one of coordinates (x or y) of first
 	 * bezier control points.
@@ -787,10 +1363,19 @@ public class SegmentList extends AbstractFetchList<Segment> {
 	 * @return Solution vector.
 	 */
 	private static double[] getFirstControlPoints(double[] rhs) {
+		return getFirstControlPoints(rhs, 2.0);
+	}
+
+	/**
+	 * Solves the tri-diagonal system with the given first entry on the
+	 * diagonal, which differs for the rows of a window in smoothEnd().
+	 */
+	private static double[] getFirstControlPoints(double[] rhs,
+			double first) {
 		int n = rhs.length;
 		double[] x = new double[n]; // Solution vector.
 		double[] tmp = new double[n]; // Temporary workspace.
-		double b = 2.0;
+		double b = first;
 		x[0] = rhs[0] / b;
 		// Decomposition and forward substitution.
 		for (int i = 1; i < n; i++) {
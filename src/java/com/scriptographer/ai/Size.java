@@ -339,6 +339,64 @@ public class Size implements ChangeEmitter {
 		return new Size(-width, -height);
 	}
 
+	/*
+	 * Variants of the arithmetic methods that store their results in a
+	 * given size instead of creating a new one. The size receiving the
+	 * result can also be the size itself.
+	 */
+
+	/**
+	 * @jshide
+	 */
+	public Size addTo(double w, double h, Size out) {
+		out.set(width + w, height + h);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size addTo(Size size, Size out) {
+		return addTo(size.width, size.height, out);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size subtractTo(double w, double h, Size out) {
+		out.set(width - w, height - h);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size subtractTo(Size size, Size out) {
+		return subtractTo(size.width, size.height, out);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size multiplyTo(double w, double h, Size out) {
+		out.set(width * w, height * h);
+		return out;
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size multiplyTo(Size size, Size out) {
+		return multiplyTo(size.width, size.height, out);
+	}
+
+	/**
+	 * @jshide
+	 */
+	public Size multiplyTo(double value, Size out) {
+		return multiplyTo(value, value, out);
+	}
+
 	/**
 	 * Returns a copy of the size.
 	 * This is useful as the following code only generates a flat copy:
@@ -34,9 +34,16 @@ import com.scriptographer.ScriptographerEngine;
  *
  */
 public class RhinoEngine extends com.scratchdisk.script.rhino.RhinoEngine implements OperatorHandler {
+	// The amount of instructions after which Rhino calls
+	// observeInstructionCount(), in which the watchdog flag is checked.
+	private static final int INSTRUCTION_THRESHOLD = 20000;
+	// The interval in milliseconds in which the progress is updated and
+	// cancellation is checked.
+	private static final long PROGRESS_INTERVAL = 100;
 
 	public RhinoEngine() {
 		super(new RhinoWrapFactory());
+		Watchdog.begin(PROGRESS_INTERVAL);
 	}
 
 	protected com.scratchdisk.script.rhino.TopLevel makeTopLevel(Context context) {
@@ -54,19 +61,71 @@ public class RhinoEngine extends com.scratchdisk.script.rhino.RhinoEngine implem
 	protected void enter(Context context) {
 		super.enter(context);
 		// Use pure interpreter mode to allow for
-		// observeInstructionCount(Context, int) to work
+		// observeInstructionCount(Context, int) to work, and since Rhino only
+		// calls the OperatorHandler from its interpreter.
 		context.setOptimizationLevel(-1);
 		// Make Rhino runtime to call observeInstructionCount
 		// each 20000 bytecode instructions
-		context.setInstructionObserverThreshold(20000);
+		context.setInstructionObserverThreshold(INSTRUCTION_THRESHOLD);
 		context.setOperatorHandler(this);
 	}
 
 	protected void observeInstructionCount(Context cx, int instructionCount) {
-		if (!ScriptographerEngine.updateProgress())
+		// Calling into the native progress is expensive, so only do so when
+		// the watchdog says it is time to, regardless of how many
+		// instructions were executed in the meantime.
+		if (Watchdog.isDue() && !ScriptographerEngine.updateProgress())
 			throw new ScriptCanceledException();
 	}
 
+	/**
+	 * A daemon thread that raises a flag in regular intervals, to tell the
+	 * executing script when to update the progress and check for
+	 * cancellation. The flag is checked each time Rhino calls
+	 * observeInstructionCount(), which is cheap compared to the native call.
+	 */
+	private static class Watchdog extends Thread {
+		private static Watchdog instance = null;
+		private static volatile boolean due = true;
+		private long interval;
+
+		private Watchdog(long interval) {
+			super("Scriptographer Watchdog");
+			this.interval = interval;
+			setDaemon(true);
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					sleep(interval);
+					due = true;
+				}
+			} catch (InterruptedException e) {
+			}
+		}
+
+		/**
+		 * Starts the thread, if it is not running yet. This is only called
+		 * when engines are created, so entering a context does not need to
+		 * synchronize.
+		 */
+		public static synchronized void begin(long interval) {
+			if (instance == null) {
+				instance = new Watchdog(interval);
+				instance.start();
+			}
+		}
+
+		public static boolean isDue() {
+			if (due) {
+				due = false;
+				return true;
+			}
+			return false;
+		}
+	}
+
 	public String[] getScriptPath(File file) {
 		return ScriptographerEngine.getScriptPath(file, true);
 	}
@@ -340,7 +340,8 @@ public class TopLevel extends com.scratchdisk.script.rhino.TopLevel {
 		ScriptEngine engine = ScriptEngine.getEngineByName("JavaScript");
 		for (int i = 0; i < args.length; i++) {
 			File file = new File(baseDir, Context.toString(args[i]));
-			executeScript(engine.compile(file), engine.getScope(thisObj));
+			executeScript(engine.compile(file, false),
+					engine.getScope(thisObj));
 		}
 	}
 
@@ -354,7 +355,7 @@ public class TopLevel extends com.scratchdisk.script.rhino.TopLevel {
 		ScriptEngine engine = ScriptEngine.getEngineByName("JavaScript");
 		for (int i = 0; i < args.length; i++) {
 			File file = new File(baseDir, Context.toString(args[i]));
-			executeScript(engine.compile(file), engine.createScope());
+			executeScript(engine.compile(file, false), engine.createScope());
 		}
 	}
 
@@ -702,8 +702,17 @@ var mainDialog = new FloatingDialog(
 
 	// Event Handlers
 
+	// The version of the script directories at the last refresh. The watcher
+	// on the Java side changes it whenever files were added, removed or
+	// modified, so there is no need to rescan the directories otherwise.
+	var scriptVersion = null;
+
 	global.onActivate = function() {
-		refreshList(null, false);
+		var version = ScriptographerEngine.scriptVersion;
+		if (version == -1 || version != scriptVersion) {
+			scriptVersion = version;
+			refreshList(null, false);
+		}
 	}
 
 	global.onKeyDown = function(event) {
@@ -688,6 +688,23 @@ JNIEXPORT jobject JNICALL Java_com_scriptographer_ai_Item_getControlBounds(JNIEn
 	return NULL;
 }
 
+/*
+ * boolean hasExtendedBounds()
+ */
+JNIEXPORT jboolean JNICALL Java_com_scriptographer_ai_Item_hasExtendedBounds(JNIEnv *env, jobject obj) {
+	try {
+		AIArtHandle art = gEngine->getArtHandle(env, obj, true);
+		// Brushes and effects are only included in the bounds if
+		// kNoExtendedBounds is not set, so compare both.
+		AIRealRect rt, extended;
+		sAIArt->GetArtTransformBounds(art, NULL, kVisibleBounds | kNoExtendedBounds | kExcludeGuideBounds, &rt);
+		sAIArt->GetArtTransformBounds(art, NULL, kVisibleBounds | kExcludeGuideBounds, &extended);
+		return rt.left != extended.left || rt.top != extended.top
+				|| rt.right != extended.right || rt.bottom != extended.bottom;
+	} EXCEPTION_CONVERT(env);
+	return false;
+}
+
 /*
  * com.scriptographer.ai.Point getPosition()
  */
@@ -95,21 +95,6 @@ JNIEXPORT void JNICALL Java_com_scriptographer_ai_Path_setGuide(JNIEnv *env, job
 	} EXCEPTION_CONVERT(env);
 }
 
-/*
- * double getLength()
- */
-JNIEXPORT jdouble JNICALL Java_com_scriptographer_ai_Path_getLength(JNIEnv *env, jobject obj) {
-	try {
-		// no need to activate document for this
-		AIArtHandle handle = gEngine->getArtHandle(env, obj);
-		AIReal length;
-		// Use a default value for flatness since AI doc says it ignores it anyway in CS4
-		sAIPath->GetPathLength(handle, &length, 0.1f);
-		return length;
-	} EXCEPTION_CONVERT(env);
-	return 0.0;
-}
-
 /*
  * float getArea()
  */